@@ -1,13 +1,42 @@
 package main;
 
+import main.server.CompileServer;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import java.io.IOException;
 
 public class Cmm {
     public static void main(String[] args) throws IOException {
-        CharStream reader = CharStreams.fromFileName(args[0]);
+        if (args.length == 2 && args[0].equals("--server")) {
+            new CompileServer(Integer.parseInt(args[1])).serve();
+            return;
+        }
         CmmCompiler cmmCompiler = new CmmCompiler();
-        cmmCompiler.compile(reader);
+        setOptions(cmmCompiler, args, args.length - 1);
+        CharStream reader = CharStreams.fromFileName(args[args.length - 1]);
+        if (!cmmCompiler.compile(reader).isSuccessful())
+            System.exit(1);
+    }
+
+    //applies the options found before end, the same for a command line and a server request
+    public static void setOptions(CmmCompiler cmmCompiler, String[] args, int end) {
+        for (int i = 0; i < end; i++) {
+            if (args[i].equals("--in-process"))
+                cmmCompiler.setInProcess(true);
+            else if (args[i].equals("--direct"))
+                cmmCompiler.setDirectBytecode(true);
+            else if (args[i].equals("--ir"))
+                cmmCompiler.setUseIr(true);
+            else if (args[i].equals("--interpret"))
+                cmmCompiler.setInterpret(true);
+            else if (args[i].equals("--vm"))
+                cmmCompiler.setUseVm(true);
+            else if (args[i].equals("--tiered"))
+                cmmCompiler.setTiered(true);
+            else if (args[i].equals("--tier-threshold") && i + 1 < end)
+                cmmCompiler.setTierThreshold(Integer.parseInt(args[++i]));
+            else if (args[i].equals("--inline-budget") && i + 1 < end)
+                cmmCompiler.setInlineBudget(Integer.parseInt(args[++i]));
+        }
     }
 }
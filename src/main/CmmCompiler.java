@@ -1,22 +1,103 @@
 package main;
 
 import main.visitor.*;
-import main.visitor.codeGenerator.CodeGenerator;
+import main.visitor.codeGenerator.*;
 import main.visitor.name.*;
+import main.visitor.optimizer.*;
 import main.visitor.type.*;
 import parsers.*;
 import main.ast.nodes.Program;
+import main.compileError.*;
+import main.interpreter.*;
+import main.vm.*;
+import main.runtime.*;
 import org.antlr.v4.runtime.*;
 
 import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Map;
 
 public class CmmCompiler {
-    public void compile(CharStream textStream) {
+    //each thread keeps its lexer and parser, so a long running process skips setting them up again
+    private static final ThreadLocal<CmmParser> parsers = ThreadLocal.withInitial(() ->
+            new CmmParser(new CommonTokenStream(new CmmLexer(CharStreams.fromString("")))));
+
+    private boolean inProcess = false;
+    private boolean directBytecode = false;
+    private boolean useIr = false;
+    private boolean interpret = false;
+    private boolean useVm = false;
+    private boolean tiered = false;
+    private int tierThreshold = TieredInterpreter.DEFAULT_THRESHOLD;
+    private int inlineBudget = Inliner.DEFAULT_SIZE_BUDGET;
+
+    public void setInProcess(boolean inProcess) {
+        this.inProcess = inProcess;
+    }
+
+    public void setDirectBytecode(boolean directBytecode) {
+        this.directBytecode = directBytecode;
+    }
+
+    public void setUseIr(boolean useIr) {
+        this.useIr = useIr;
+    }
+
+    public void setInterpret(boolean interpret) {
+        this.interpret = interpret;
+    }
+
+    public void setUseVm(boolean useVm) {
+        this.useVm = useVm;
+    }
+
+    public void setTiered(boolean tiered) {
+        this.tiered = tiered;
+    }
+
+    public void setTierThreshold(int tierThreshold) {
+        this.tierThreshold = tierThreshold;
+    }
+
+    public void setInlineBudget(int inlineBudget) {
+        this.inlineBudget = inlineBudget;
+    }
+
+    private Program parse(CharStream textStream, ArrayList<CompileError> syntaxErrors) {
+        CmmParser cmmParser = parsers.get();
+        CmmLexer cmmLexer = (CmmLexer) cmmParser.getTokenStream().getTokenSource();
+        BaseErrorListener syntaxErrorListener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String message, RecognitionException e) {
+                syntaxErrors.add(new SyntaxError(line, message));
+            }
+        };
+        cmmLexer.removeErrorListeners();
+        cmmLexer.addErrorListener(ConsoleErrorListener.INSTANCE);
+        cmmLexer.addErrorListener(syntaxErrorListener);
+        cmmLexer.setInputStream(textStream);
+        cmmParser.removeErrorListeners();
+        cmmParser.addErrorListener(ConsoleErrorListener.INSTANCE);
+        cmmParser.addErrorListener(syntaxErrorListener);
+        cmmParser.setTokenStream(new CommonTokenStream(cmmLexer));
+        try {
+            return cmmParser.cmm().cmmProgram;
+        } catch (RuntimeException e) {
+            //the grammar's actions can fail on a tree broken by syntax errors, which are already reported
+            if (syntaxErrors.isEmpty())
+                throw e;
+            return null;
+        }
+    }
+
+    public CompileResult compile(CharStream textStream) {
         System.out.println("\n--------------------------Compiling--------------------------");
-        CmmLexer cmmLexer = new CmmLexer(textStream);
-        CommonTokenStream tokenStream = new CommonTokenStream(cmmLexer);
-        CmmParser cmmParser = new CmmParser(tokenStream);
-        Program program = cmmParser.cmm().cmmProgram;
+        ArrayList<CompileError> syntaxErrors = new ArrayList<>();
+        Program program = parse(textStream, syntaxErrors);
+        if (!syntaxErrors.isEmpty())
+            return new CompileResult(syntaxErrors);
         ErrorReporter errorReporter = new ErrorReporter();
 
         NameAnalyser nameAnalyser = new NameAnalyser();
@@ -24,21 +105,101 @@ public class CmmCompiler {
 
         int numberOfErrors = program.accept(errorReporter);
         if (numberOfErrors > 0)
-            System.exit(1);
+            return new CompileResult(errorReporter.getReportedErrors());
 
         TypeChecker typeChecker = new TypeChecker();
         program.accept(typeChecker);
 
         numberOfErrors = program.accept(errorReporter);
         if (numberOfErrors > 0)
-            System.exit(1);
+            return new CompileResult(errorReporter.getReportedErrors());
 
-        CodeGenerator codeGenerator = new CodeGenerator();
+        if (interpret || tiered) {
+            interpret(program);
+            return new CompileResult(errorReporter.getReportedErrors());
+        }
+        if (useVm) {
+            runVm(program);
+            return new CompileResult(errorReporter.getReportedErrors());
+        }
+
+        Inliner inliner = new Inliner(inlineBudget);
+        program.accept(inliner);
+        System.out.println("Inlined " + inliner.getNumberOfInlined() + " calls");
+
+        ConstantFolder constantFolder = new ConstantFolder();
+        program.accept(constantFolder);
+        System.out.println("Folded " + constantFolder.getNumberOfFolded() + " constant nodes");
+
+        DeadCodeEliminator deadCodeEliminator = new DeadCodeEliminator();
+        program.accept(deadCodeEliminator);
+        System.out.println("Removed " + deadCodeEliminator.getNumberOfRemovedFunctions() + " unused functions and "
+                + deadCodeEliminator.getNumberOfRemovedStatements() + " dead statements");
+
+        LoopInvariantMover loopInvariantMover = new LoopInvariantMover();
+        program.accept(loopInvariantMover);
+        System.out.println("Hoisted " + loopInvariantMover.getNumberOfHoisted() + " loop invariant expressions");
+
+        CodeGenerator codeGenerator = directBytecode ? new BytecodeGenerator() : new CodeGenerator();
+        codeGenerator.setInMemory(inProcess);
+        codeGenerator.setUseIr(useIr);
         program.accept(codeGenerator);
+        if (useIr)
+            System.out.println("Lowered " + codeGenerator.getNumberOfIrBodies() + " bodies through the SSA IR");
+        System.out.println("Rewrote " + codeGenerator.getNumberOfRewrites() + " instruction sequences");
 
         System.out.println("Compilation successful");
 
-        runJasminFiles();
+        if (inProcess)
+            runInProcess(codeGenerator);
+        else
+            runJasminFiles();
+        return new CompileResult(errorReporter.getReportedErrors());
+    }
+
+    private void interpret(Program program) {
+        System.out.println("\n---------------------------Output---------------------------");
+        TieredInterpreter tieredInterpreter = tiered ? new TieredInterpreter(tierThreshold) : null;
+        try {
+            program.accept(tiered ? tieredInterpreter : new Interpreter());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        //only known once the program has run, so it stays out of the program's own output
+        if (tiered)
+            System.err.println("Compiled " + tieredInterpreter.getNumberOfCompiled() + " hot functions");
+    }
+
+    private void runVm(Program program) {
+        VmFunction main = VmCompiler.compile(program);
+        System.out.println("\n---------------------------Output---------------------------");
+        try {
+            main.execute(main.newFrame());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void runInProcess(CodeGenerator codeGenerator) {
+        System.out.println("\n-------------------Generating Class Files-------------------");
+        JasminAssembler assembler = new JasminAssembler();
+        for (Map.Entry<String, String> jasminFile : codeGenerator.getJasminFiles().entrySet())
+            assembler.assemble(jasminFile.getKey() + ".j", new StringReader(jasminFile.getValue()));
+        if (assembler.getNumberOfErrors() > 0)
+            return;
+        System.out.println("\n---------------------------Output---------------------------");
+        InMemoryClassLoader classLoader = new InMemoryClassLoader();
+        classLoader.addClasses(assembler.getClasses());
+        if (codeGenerator instanceof BytecodeGenerator)
+            classLoader.addClasses(((BytecodeGenerator) codeGenerator).getClasses());
+        try {
+            Class<?> mainClass = classLoader.loadClass("Main");
+            mainClass.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+        } catch (InvocationTargetException e) {
+            e.getCause().printStackTrace();
+        } catch (ReflectiveOperationException e) {
+            e.printStackTrace();
+        }
     }
 
     private void runJasminFiles() {
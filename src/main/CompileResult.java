@@ -0,0 +1,22 @@
+package main;
+
+import main.compileError.CompileError;
+
+import java.util.ArrayList;
+
+//how a compilation ended: successful, or stopped by the errors it printed
+public class CompileResult {
+    private final ArrayList<CompileError> errors;
+
+    public CompileResult(ArrayList<CompileError> errors) {
+        this.errors = errors;
+    }
+
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+
+    public ArrayList<CompileError> getErrors() {
+        return errors;
+    }
+}
@@ -2,6 +2,15 @@ package main.ast.nodes.expression;
 
 
 import main.ast.nodes.Node;
+import main.ast.types.Type;
 
 public abstract class Expression extends Node {
+    private Type type;
+
+    public Type getType() {
+        return type;
+    }
+    public void setType(Type type) {
+        this.type = type;
+    }
 }
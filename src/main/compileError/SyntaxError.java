@@ -0,0 +1,9 @@
+package main.compileError;
+
+public class SyntaxError extends CompileError {
+
+    public SyntaxError(int line, String message) {
+        super(line, message);
+    }
+
+}
@@ -0,0 +1,39 @@
+package main.interpreter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//the variables of one running body; getters and setters also see the fields of the struct they belong to
+public class Frame {
+    private final Map<String, Object> locals = new HashMap<>();
+    private final StructInstance self;
+
+    public Frame() {
+        this(null);
+    }
+
+    public Frame(StructInstance self) {
+        this.self = self;
+    }
+
+    public void declare(String name, Object value) {
+        locals.put(name, value);
+    }
+
+    public boolean has(String name) {
+        return locals.containsKey(name) || (self != null && self.hasField(name));
+    }
+
+    public Object get(String name) {
+        if (locals.containsKey(name) || self == null)
+            return locals.get(name);
+        return self.getField(name);
+    }
+
+    public void set(String name, Object value) {
+        if (locals.containsKey(name) || self == null)
+            locals.put(name, value);
+        else
+            self.setField(name, value);
+    }
+}
@@ -0,0 +1,48 @@
+package main.interpreter;
+
+import main.ast.nodes.declaration.FunctionDeclaration;
+
+import java.lang.invoke.MethodHandle;
+
+//what the tiered runtime knows about one function: how often it ran, how often its loops went around
+//and, once it got hot enough, the compiled method its calls go to
+public class FunctionProfile {
+    private final FunctionDeclaration function;
+    private int invocations = 0;
+    private int backEdges = 0;
+    private boolean compilable = true;
+    private MethodHandle compiled;
+
+    public FunctionProfile(FunctionDeclaration function) {
+        this.function = function;
+    }
+
+    public FunctionDeclaration getFunction() {
+        return function;
+    }
+
+    public void countInvocation() {
+        invocations++;
+    }
+
+    public void countBackEdge() {
+        backEdges++;
+    }
+
+    //a long running loop makes a function hot as much as being called often does
+    public boolean isHot(int threshold) {
+        return compilable && invocations + backEdges >= threshold;
+    }
+
+    public void setCompilable(boolean compilable) {
+        this.compilable = compilable;
+    }
+
+    public MethodHandle getCompiled() {
+        return compiled;
+    }
+
+    public void setCompiled(MethodHandle compiled) {
+        this.compiled = compiled;
+    }
+}
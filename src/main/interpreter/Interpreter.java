@@ -0,0 +1,374 @@
+package main.interpreter;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.*;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.*;
+import main.ast.nodes.expression.values.primitive.*;
+import main.ast.nodes.statement.*;
+import main.ast.types.*;
+import main.ast.types.primitives.*;
+import main.visitor.Visitor;
+
+import java.util.*;
+
+//runs a type checked program straight from its tree; ints and bools are Integer and Boolean, lists are
+//ArrayLists copied wherever the generated code copies them, structs are shared StructInstances and fptrs
+//are the FunctionDeclaration they point to
+public class Interpreter extends Visitor<Object> {
+    private final Map<String, FunctionDeclaration> functions = new HashMap<>();
+    private final Map<String, StructDeclaration> structs = new HashMap<>();
+    private final Map<StructDeclaration, ArrayList<VariableDeclaration>> fields = new HashMap<>();
+    private final Map<StructDeclaration, Map<String, SetGetVarDeclaration>> accessors = new HashMap<>();
+    private Frame frame;
+    private boolean returning = false;
+    private Object returnValue;
+
+    private void addMembers(StructDeclaration structDeclaration, Statement member) {
+        if (member instanceof BlockStmt)
+            for (Statement statement : ((BlockStmt) member).getStatements())
+                addMembers(structDeclaration, statement);
+        else if (member instanceof VarDecStmt)
+            fields.get(structDeclaration).addAll(((VarDecStmt) member).getVars());
+        else if (member instanceof SetGetVarDeclaration) {
+            SetGetVarDeclaration setGetVarDeclaration = (SetGetVarDeclaration) member;
+            fields.get(structDeclaration).add(setGetVarDeclaration.getVarDec());
+            accessors.get(structDeclaration).put(setGetVarDeclaration.getVarName().getName(), setGetVarDeclaration);
+        }
+    }
+
+    private StructInstance newStruct(String structName) {
+        StructDeclaration structDeclaration = structs.get(structName);
+        StructInstance instance = new StructInstance(structDeclaration);
+        Frame saved = frame;
+        frame = new Frame(instance);
+        for (VariableDeclaration field : fields.get(structDeclaration))
+            instance.setField(field.getVarName().getName(), initialValue(field));
+        frame = saved;
+        return instance;
+    }
+
+    private Object defaultValue(Type type) {
+        if (type instanceof IntType)
+            return 0;
+        if (type instanceof BoolType)
+            return false;
+        if (type instanceof ListType)
+            return new ArrayList<>();
+        if (type instanceof StructType)
+            return newStruct(((StructType) type).getStructName().getName());
+        return null;
+    }
+
+    private Object initialValue(VariableDeclaration variableDeclaration) {
+        if (variableDeclaration.getDefaultValue() != null)
+            return copy(variableDeclaration.getDefaultValue().accept(this));
+        return defaultValue(variableDeclaration.getVarType());
+    }
+
+    //lists behave as values, so a list stored anywhere gets its own copy, nested lists included
+    private static Object copy(Object value) {
+        if (!(value instanceof ArrayList))
+            return value;
+        ArrayList<Object> copied = new ArrayList<>();
+        for (Object element : (ArrayList<?>) value)
+            copied.add(copy(element));
+        return copied;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayList<Object> asList(Object value) {
+        return (ArrayList<Object>) value;
+    }
+
+    private boolean isTrue(Expression condition) {
+        return (Boolean) condition.accept(this);
+    }
+
+    private int valueOf(Expression expression) {
+        return (Integer) expression.accept(this);
+    }
+
+    //runs a body in its own frame and hands back what it returned
+    private Object run(Statement body, Frame bodyFrame) {
+        Frame saved = frame;
+        frame = bodyFrame;
+        body.accept(this);
+        Object result = returnValue;
+        returning = false;
+        returnValue = null;
+        frame = saved;
+        return result;
+    }
+
+    private SetGetVarDeclaration accessorOf(StructInstance instance, String fieldName) {
+        return accessors.get(instance.getDeclaration()).get(fieldName);
+    }
+
+    //the setter sees the assigned value as its first argument and the struct's fields as variables
+    private void runSetter(StructInstance instance, SetGetVarDeclaration setGetVarDeclaration, Object value) {
+        Frame setterFrame = new Frame(instance);
+        ArrayList<VariableDeclaration> args = setGetVarDeclaration.getArgs();
+        for (int i = 0; i < args.size(); i++)
+            setterFrame.declare(args.get(i).getVarName().getName(), i == 0 ? value : defaultValue(args.get(i).getVarType()));
+        run(setGetVarDeclaration.getSetterBody(), setterFrame);
+    }
+
+    private Object runGetter(StructInstance instance, SetGetVarDeclaration setGetVarDeclaration) {
+        return run(setGetVarDeclaration.getGetterBody(), new Frame(instance));
+    }
+
+    private Object assign(Expression lValue, Expression rValue) {
+        if (lValue instanceof Identifier) {
+            Object value = copy(rValue.accept(this));
+            frame.set(((Identifier) lValue).getName(), value);
+            return value;
+        }
+        if (lValue instanceof ListAccessByIndex) {
+            ArrayList<Object> list = asList(((ListAccessByIndex) lValue).getInstance().accept(this));
+            int index = valueOf(((ListAccessByIndex) lValue).getIndex());
+            Object value = copy(rValue.accept(this));
+            list.set(index, value);
+            return value;
+        }
+        StructInstance instance = (StructInstance) ((StructAccess) lValue).getInstance().accept(this);
+        String fieldName = ((StructAccess) lValue).getElement().getName();
+        Object value = copy(rValue.accept(this));
+        SetGetVarDeclaration setGetVarDeclaration = accessorOf(instance, fieldName);
+        if (setGetVarDeclaration != null)
+            runSetter(instance, setGetVarDeclaration, value);
+        else
+            instance.setField(fieldName, value);
+        return value;
+    }
+
+    //runs one call of a function with its arguments already evaluated and copied
+    protected Object call(FunctionDeclaration function, ArrayList<Object> args) {
+        Frame functionFrame = new Frame();
+        for (int i = 0; i < args.size(); i++)
+            functionFrame.declare(function.getArgs().get(i).getVarName().getName(), args.get(i));
+        return run(function.getBody(), functionFrame);
+    }
+
+    //called each time a loop goes around again
+    protected void onBackEdge() {
+    }
+
+    @Override
+    public Object visit(Program program) {
+        for (StructDeclaration structDeclaration : program.getStructs()) {
+            structs.put(structDeclaration.getStructName().getName(), structDeclaration);
+            fields.put(structDeclaration, new ArrayList<>());
+            accessors.put(structDeclaration, new HashMap<>());
+            addMembers(structDeclaration, structDeclaration.getBody());
+        }
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            functions.put(functionDeclaration.getFunctionName().getName(), functionDeclaration);
+        program.getMain().accept(this);
+        return null;
+    }
+
+    @Override
+    public Object visit(MainDeclaration mainDeclaration) {
+        run(mainDeclaration.getBody(), new Frame());
+        return null;
+    }
+
+    @Override
+    public Object visit(VariableDeclaration variableDeclaration) {
+        frame.declare(variableDeclaration.getVarName().getName(), initialValue(variableDeclaration));
+        return null;
+    }
+
+    @Override
+    public Object visit(AssignmentStmt assignmentStmt) {
+        assign(assignmentStmt.getLValue(), assignmentStmt.getRValue());
+        return null;
+    }
+
+    @Override
+    public Object visit(BlockStmt blockStmt) {
+        for (Statement statement : blockStmt.getStatements()) {
+            if (returning)
+                break;
+            statement.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ConditionalStmt conditionalStmt) {
+        if (isTrue(conditionalStmt.getCondition()))
+            conditionalStmt.getThenBody().accept(this);
+        else if (conditionalStmt.getElseBody() != null)
+            conditionalStmt.getElseBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Object visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Object visit(DisplayStmt displayStmt) {
+        System.out.println(displayStmt.getArg().accept(this));
+        return null;
+    }
+
+    @Override
+    public Object visit(ReturnStmt returnStmt) {
+        Expression returnedExpr = returnStmt.getReturnedExpr();
+        returnValue = returnedExpr == null ? null : returnedExpr.accept(this);
+        returning = true;
+        return null;
+    }
+
+    @Override
+    public Object visit(LoopStmt loopStmt) {
+        if (!loopStmt.getIsDoWhile()) {
+            while (!returning && isTrue(loopStmt.getCondition())) {
+                loopStmt.getBody().accept(this);
+                onBackEdge();
+            }
+        }
+        else {
+            do {
+                loopStmt.getBody().accept(this);
+                onBackEdge();
+            } while (!returning && isTrue(loopStmt.getCondition()));
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration variableDeclaration : varDecStmt.getVars())
+            variableDeclaration.accept(this);
+        return null;
+    }
+
+    @Override
+    public Object visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Object visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryExpression binaryExpression) {
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        Expression firstOperand = binaryExpression.getFirstOperand();
+        Expression secondOperand = binaryExpression.getSecondOperand();
+        switch (operator) {
+            case assign:
+                return assign(firstOperand, secondOperand);
+            case and:
+                return isTrue(firstOperand) && isTrue(secondOperand);
+            case or:
+                return isTrue(firstOperand) || isTrue(secondOperand);
+            case eq: {
+                Object first = firstOperand.accept(this);
+                Object second = secondOperand.accept(this);
+                if (first instanceof Integer || first instanceof Boolean)
+                    return first.equals(second);
+                return first == second;
+            }
+            default:
+                break;
+        }
+        int first = valueOf(firstOperand);
+        int second = valueOf(secondOperand);
+        switch (operator) {
+            case add:
+                return first + second;
+            case sub:
+                return first - second;
+            case mult:
+                return first * second;
+            case div:
+                return first / second;
+            case lt:
+                return first < second;
+            case gt:
+                return first > second;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Object visit(UnaryExpression unaryExpression) {
+        if (unaryExpression.getOperator() == UnaryOperator.minus)
+            return -valueOf(unaryExpression.getOperand());
+        return !isTrue(unaryExpression.getOperand());
+    }
+
+    @Override
+    public Object visit(Identifier identifier) {
+        if (frame.has(identifier.getName()))
+            return frame.get(identifier.getName());
+        return functions.get(identifier.getName());
+    }
+
+    @Override
+    public Object visit(ListAccessByIndex listAccessByIndex) {
+        ArrayList<Object> list = asList(listAccessByIndex.getInstance().accept(this));
+        return list.get(valueOf(listAccessByIndex.getIndex()));
+    }
+
+    @Override
+    public Object visit(StructAccess structAccess) {
+        StructInstance instance = (StructInstance) structAccess.getInstance().accept(this);
+        String fieldName = structAccess.getElement().getName();
+        SetGetVarDeclaration setGetVarDeclaration = accessorOf(instance, fieldName);
+        if (setGetVarDeclaration != null)
+            return runGetter(instance, setGetVarDeclaration);
+        return instance.getField(fieldName);
+    }
+
+    @Override
+    public Object visit(FunctionCall functionCall) {
+        FunctionDeclaration function = (FunctionDeclaration) functionCall.getInstance().accept(this);
+        ArrayList<Object> args = new ArrayList<>();
+        for (Expression arg : functionCall.getArgs())
+            args.add(copy(arg.accept(this)));
+        if (function == null)
+            throw new NullPointerException("call through an fptr that was never assigned");
+        return call(function, args);
+    }
+
+    @Override
+    public Object visit(IntValue intValue) {
+        return intValue.getConstant();
+    }
+
+    @Override
+    public Object visit(BoolValue boolValue) {
+        return boolValue.getConstant();
+    }
+
+    @Override
+    public Object visit(ListSize listSize) {
+        return asList(listSize.getArg().accept(this)).size();
+    }
+
+    @Override
+    public Object visit(ListAppend listAppend) {
+        ArrayList<Object> list = asList(listAppend.getListArg().accept(this));
+        list.add(copy(listAppend.getElementArg().accept(this)));
+        return null;
+    }
+
+    @Override
+    public Object visit(ExprInPar exprInPar) {
+        return exprInPar.getInputs().get(0).accept(this);
+    }
+}
@@ -0,0 +1,32 @@
+package main.interpreter;
+
+import main.ast.nodes.declaration.struct.StructDeclaration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//a struct value; fields declared with a getter and setter keep their stored value here like any other field
+public class StructInstance {
+    private final StructDeclaration declaration;
+    private final Map<String, Object> fields = new HashMap<>();
+
+    public StructInstance(StructDeclaration declaration) {
+        this.declaration = declaration;
+    }
+
+    public StructDeclaration getDeclaration() {
+        return declaration;
+    }
+
+    public boolean hasField(String name) {
+        return fields.containsKey(name);
+    }
+
+    public Object getField(String name) {
+        return fields.get(name);
+    }
+
+    public void setField(String name, Object value) {
+        fields.put(name, value);
+    }
+}
@@ -0,0 +1,152 @@
+package main.interpreter;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.*;
+import main.ast.nodes.statement.*;
+import main.ast.types.*;
+import main.ast.types.primitives.*;
+import main.runtime.*;
+import main.visitor.codeGenerator.*;
+
+import java.io.StringReader;
+import java.lang.invoke.*;
+import java.util.*;
+
+//interprets every function until its calls and loop iterations reach the threshold, then calls the
+//method the code generator made for it instead; there is no on stack replacement, so a hot loop
+//moves to bytecode the next time its function is called.
+//only functions taking and returning ints and bools are moved, as the Integers and Booleans the
+//interpreter uses are exactly what compiled methods take and return
+public class TieredInterpreter extends Interpreter {
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    private final int threshold;
+    private final Map<FunctionDeclaration, FunctionProfile> profiles = new HashMap<>();
+    private final Deque<FunctionProfile> running = new ArrayDeque<>();
+    private Program program;
+    private Object compiledMain;
+    private boolean tiering = true;
+    private int numberOfCompiled = 0;
+
+    public TieredInterpreter(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public int getNumberOfCompiled() {
+        return numberOfCompiled;
+    }
+
+    private static boolean isPrimitive(Type type) {
+        return type instanceof IntType || type instanceof BoolType;
+    }
+
+    private static boolean hasAccessors(Statement member) {
+        if (member instanceof BlockStmt)
+            for (Statement statement : ((BlockStmt) member).getStatements())
+                if (hasAccessors(statement))
+                    return true;
+        return member instanceof SetGetVarDeclaration;
+    }
+
+    private static boolean isCompilable(FunctionDeclaration function) {
+        for (VariableDeclaration arg : function.getArgs())
+            if (!isPrimitive(arg.getVarType()))
+                return false;
+        return isPrimitive(function.getReturnType()) || function.getReturnType() instanceof VoidType;
+    }
+
+    private static Class<?> classOf(Type type) {
+        if (type instanceof IntType)
+            return Integer.class;
+        if (type instanceof BoolType)
+            return Boolean.class;
+        return void.class;
+    }
+
+    //the whole program is compiled once, unoptimized since the optimizers rewrite the tree being
+    //interpreted, into a Main whose constructor leaves the main body to the interpreter
+    private Object compileProgram() throws ReflectiveOperationException {
+        BytecodeGenerator codeGenerator = new BytecodeGenerator();
+        codeGenerator.setInMemory(true);
+        codeGenerator.setCompileMainBody(false);
+        program.accept(codeGenerator);
+        JasminAssembler assembler = new JasminAssembler();
+        assembler.setQuiet(true);
+        for (Map.Entry<String, String> jasminFile : codeGenerator.getJasminFiles().entrySet())
+            assembler.assemble(jasminFile.getKey() + ".j", new StringReader(jasminFile.getValue()));
+        if (assembler.getNumberOfErrors() > 0)
+            throw new ClassNotFoundException("Main");
+        InMemoryClassLoader classLoader = new InMemoryClassLoader();
+        classLoader.addClasses(assembler.getClasses());
+        classLoader.addClasses(codeGenerator.getClasses());
+        return classLoader.loadClass("Main").getConstructor().newInstance();
+    }
+
+    private void tierUp(FunctionProfile profile) {
+        FunctionDeclaration function = profile.getFunction();
+        if (!tiering || !isCompilable(function)) {
+            profile.setCompilable(false);
+            return;
+        }
+        try {
+            if (compiledMain == null)
+                compiledMain = compileProgram();
+            Class<?>[] parameterTypes = new Class<?>[function.getArgs().size()];
+            for (int i = 0; i < parameterTypes.length; i++)
+                parameterTypes[i] = classOf(function.getArgs().get(i).getVarType());
+            MethodType methodType = MethodType.methodType(classOf(function.getReturnType()), parameterTypes);
+            profile.setCompiled(MethodHandles.publicLookup()
+                    .findVirtual(compiledMain.getClass(), function.getFunctionName().getName(), methodType)
+                    .bindTo(compiledMain));
+            numberOfCompiled++;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            tiering = false;
+            profile.setCompilable(false);
+        }
+    }
+
+    private static Object invoke(MethodHandle compiled, ArrayList<Object> args) {
+        try {
+            return compiled.invokeWithArguments(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    protected Object call(FunctionDeclaration function, ArrayList<Object> args) {
+        FunctionProfile profile = profiles.computeIfAbsent(function, FunctionProfile::new);
+        if (profile.getCompiled() == null) {
+            profile.countInvocation();
+            if (profile.isHot(threshold))
+                tierUp(profile);
+        }
+        if (profile.getCompiled() != null)
+            return invoke(profile.getCompiled(), args);
+        running.push(profile);
+        try {
+            return super.call(function, args);
+        } finally {
+            running.pop();
+        }
+    }
+
+    @Override
+    protected void onBackEdge() {
+        FunctionProfile profile = running.peek();
+        if (profile != null)
+            profile.countBackEdge();
+    }
+
+    @Override
+    public Object visit(Program program) {
+        this.program = program;
+        for (StructDeclaration structDeclaration : program.getStructs())
+            if (hasAccessors(structDeclaration.getBody()))
+                tiering = false;
+        return super.visit(program);
+    }
+}
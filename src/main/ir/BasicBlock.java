@@ -0,0 +1,110 @@
+package main.ir;
+
+import java.util.*;
+
+//straight-line instructions ending in exactly one jump, branch or return
+public class BasicBlock {
+    public enum Exit { JUMP, BRANCH, RETURN }
+
+    private final int id;
+    private final ArrayList<IrInstruction> phis = new ArrayList<>();
+    private final ArrayList<IrInstruction> instructions = new ArrayList<>();
+    private final ArrayList<BasicBlock> predecessors = new ArrayList<>();
+    private final ArrayList<BasicBlock> successors = new ArrayList<>();
+    private Exit exit = null;
+    private Operand exitOperand;
+
+    public BasicBlock(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return "Block_" + id;
+    }
+
+    public ArrayList<IrInstruction> getPhis() {
+        return phis;
+    }
+
+    public ArrayList<IrInstruction> getInstructions() {
+        return instructions;
+    }
+
+    public void add(IrInstruction instruction) {
+        instructions.add(instruction);
+    }
+
+    public ArrayList<BasicBlock> getPredecessors() {
+        return predecessors;
+    }
+
+    //a branch goes to its first successor when the condition holds and to the second one otherwise
+    public ArrayList<BasicBlock> getSuccessors() {
+        return successors;
+    }
+
+    public boolean isTerminated() {
+        return exit != null;
+    }
+
+    public Exit getExit() {
+        return exit;
+    }
+
+    //the branch condition or the returned value, null for a jump or a return without a value
+    public Operand getExitOperand() {
+        return exitOperand;
+    }
+
+    public void setExitOperand(Operand exitOperand) {
+        this.exitOperand = exitOperand;
+    }
+
+    private void link(BasicBlock successor) {
+        successors.add(successor);
+        successor.predecessors.add(this);
+    }
+
+    public void jump(BasicBlock target) {
+        exit = Exit.JUMP;
+        link(target);
+    }
+
+    public void branch(Operand condition, BasicBlock ifTrue, BasicBlock ifFalse) {
+        exit = Exit.BRANCH;
+        exitOperand = condition;
+        link(ifTrue);
+        link(ifFalse);
+    }
+
+    public void ret(Operand value) {
+        exit = Exit.RETURN;
+        exitOperand = value;
+    }
+
+    //drops the edges of a block that can never run, so it does not count as a predecessor
+    void unlink() {
+        for (BasicBlock successor : successors)
+            successor.predecessors.remove(this);
+        successors.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(getLabel() + ":\n");
+        for (IrInstruction phi : phis)
+            text.append("    ").append(phi).append("\n");
+        for (IrInstruction instruction : instructions)
+            text.append("    ").append(instruction).append("\n");
+        text.append("    ").append(exit == null ? "unterminated" : exit.name().toLowerCase());
+        if (exitOperand != null)
+            text.append(" ").append(exitOperand);
+        for (BasicBlock successor : successors)
+            text.append(" ").append(successor.getLabel());
+        return text.append("\n").toString();
+    }
+}
@@ -0,0 +1,84 @@
+package main.ir;
+
+import main.ast.types.Type;
+
+import java.util.*;
+
+//the basic blocks of one function or of main, entry first
+public class ControlFlowGraph {
+    private final String name;
+    private final Type returnType;
+    private final ArrayList<Variable> params = new ArrayList<>();
+    private ArrayList<BasicBlock> blocks = new ArrayList<>();
+
+    public ControlFlowGraph(String name, Type returnType) {
+        this.name = name;
+        this.returnType = returnType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public ArrayList<Variable> getParams() {
+        return params;
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    public ArrayList<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(blocks.size());
+        blocks.add(block);
+        return block;
+    }
+
+    //keeps the blocks reachable from the entry, in reverse postorder so every block comes after its dominator
+    public void orderBlocks() {
+        ArrayList<BasicBlock> postorder = new ArrayList<>();
+        Set<BasicBlock> visited = new HashSet<>();
+        Deque<BasicBlock> stack = new ArrayDeque<>();
+        Deque<Integer> next = new ArrayDeque<>();
+        stack.push(getEntry());
+        next.push(0);
+        visited.add(getEntry());
+        while (!stack.isEmpty()) {
+            BasicBlock block = stack.peek();
+            int index = next.pop();
+            if (index < block.getSuccessors().size()) {
+                next.push(index + 1);
+                BasicBlock successor = block.getSuccessors().get(index);
+                if (visited.add(successor)) {
+                    stack.push(successor);
+                    next.push(0);
+                }
+            }
+            else {
+                stack.pop();
+                postorder.add(block);
+            }
+        }
+        for (BasicBlock block : blocks)
+            if (!visited.contains(block))
+                block.unlink();
+        Collections.reverse(postorder);
+        blocks = postorder;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(name + params + ":\n");
+        for (BasicBlock block : blocks)
+            text.append(block);
+        return text.toString();
+    }
+}
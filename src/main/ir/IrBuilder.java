@@ -0,0 +1,362 @@
+package main.ir;
+
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.*;
+import main.ast.nodes.expression.values.primitive.*;
+import main.ast.nodes.statement.*;
+import main.ast.types.*;
+import main.ast.types.primitives.*;
+import main.ir.exceptions.UnsupportedConstructException;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.FunctionSymbolTableItem;
+import main.visitor.Visitor;
+
+import java.util.*;
+
+//turns a body that only works on int and bool locals into basic blocks, statements return null and expressions their value
+public class IrBuilder extends Visitor<Operand> {
+    private final ControlFlowGraph graph;
+    private final Deque<Map<String, Variable>> scopes = new ArrayDeque<>();
+    private BasicBlock current;
+    private int numberOfTemporaries = 0;
+
+    private IrBuilder(ControlFlowGraph graph) {
+        this.graph = graph;
+        this.current = graph.newBlock();
+        scopes.push(new HashMap<>());
+    }
+
+    //null when the function uses lists, structs or function pointers
+    public static ControlFlowGraph build(FunctionDeclaration functionDeclaration) {
+        Type returnType = functionDeclaration.getReturnType();
+        if (!isPrimitive(returnType) && !(returnType instanceof VoidType))
+            return null;
+        IrBuilder builder = new IrBuilder(new ControlFlowGraph(functionDeclaration.getFunctionName().getName(), returnType));
+        try {
+            for (VariableDeclaration arg : functionDeclaration.getArgs())
+                builder.graph.getParams().add(builder.declare(arg));
+            return builder.finish(functionDeclaration.getBody());
+        } catch (UnsupportedConstructException e) {
+            return null;
+        }
+    }
+
+    public static ControlFlowGraph build(MainDeclaration mainDeclaration) {
+        IrBuilder builder = new IrBuilder(new ControlFlowGraph("main", new VoidType()));
+        try {
+            return builder.finish(mainDeclaration.getBody());
+        } catch (UnsupportedConstructException e) {
+            return null;
+        }
+    }
+
+    private ControlFlowGraph finish(Statement body) {
+        body.accept(this);
+        current.ret(null);
+        graph.orderBlocks();
+        return graph;
+    }
+
+    private static boolean isPrimitive(Type type) {
+        return type instanceof IntType || type instanceof BoolType;
+    }
+
+    private Variable declare(VariableDeclaration variableDeclaration) {
+        Type type = variableDeclaration.getVarType();
+        if (!isPrimitive(type))
+            throw new UnsupportedConstructException();
+        String name = variableDeclaration.getVarName().getName();
+        Variable variable = new Variable(name, type instanceof BoolType, false);
+        scopes.peek().put(name, variable);
+        return variable;
+    }
+
+    private Variable lookup(String name) {
+        for (Map<String, Variable> scope : scopes)
+            if (scope.containsKey(name))
+                return scope.get(name);
+        throw new UnsupportedConstructException();
+    }
+
+    private Variable temporary(Type type) {
+        if (!isPrimitive(type))
+            throw new UnsupportedConstructException();
+        return new Variable("%" + numberOfTemporaries++, type instanceof BoolType, true);
+    }
+
+    private Operand emit(IrOpcode opcode, Type type, Operand... operands) {
+        Variable target = temporary(type);
+        current.add(new IrInstruction(opcode, target, operands));
+        return Operand.of(target);
+    }
+
+    //code after a return still has to go somewhere, it ends up in a block nothing jumps to
+    private void startUnreachable() {
+        current = graph.newBlock();
+    }
+
+    private static FunctionSymbolTableItem knownFunction(Expression instance) {
+        if (!(instance instanceof Identifier))
+            return null;
+        try {
+            String functionKey = FunctionSymbolTableItem.START_KEY + ((Identifier) instance).getName();
+            return (FunctionSymbolTableItem) SymbolTable.root().getItem(functionKey);
+        } catch (ItemNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Operand visit(VariableDeclaration variableDeclaration) {
+        Type type = variableDeclaration.getVarType();
+        Operand value;
+        if (variableDeclaration.getDefaultValue() != null)
+            value = variableDeclaration.getDefaultValue().accept(this);
+        else
+            value = type instanceof BoolType ? Operand.of(false) : Operand.of(0);
+        Variable variable = declare(variableDeclaration);
+        current.add(new IrInstruction(IrOpcode.COPY, variable, value));
+        return null;
+    }
+
+    @Override
+    public Operand visit(SetGetVarDeclaration setGetVarDeclaration) {
+        throw new UnsupportedConstructException();
+    }
+
+    @Override
+    public Operand visit(AssignmentStmt assignmentStmt) {
+        if (!(assignmentStmt.getLValue() instanceof Identifier))
+            throw new UnsupportedConstructException();
+        Variable variable = lookup(((Identifier) assignmentStmt.getLValue()).getName());
+        Operand value = assignmentStmt.getRValue().accept(this);
+        current.add(new IrInstruction(IrOpcode.COPY, variable, value));
+        return null;
+    }
+
+    @Override
+    public Operand visit(BlockStmt blockStmt) {
+        scopes.push(new HashMap<>());
+        for (Statement statement : blockStmt.getStatements())
+            statement.accept(this);
+        scopes.pop();
+        return null;
+    }
+
+    @Override
+    public Operand visit(ConditionalStmt conditionalStmt) {
+        Operand condition = conditionalStmt.getCondition().accept(this);
+        BasicBlock thenBlock = graph.newBlock();
+        BasicBlock elseBlock = conditionalStmt.getElseBody() == null ? null : graph.newBlock();
+        BasicBlock after = graph.newBlock();
+        current.branch(condition, thenBlock, elseBlock == null ? after : elseBlock);
+
+        current = thenBlock;
+        conditionalStmt.getThenBody().accept(this);
+        current.jump(after);
+        if (elseBlock != null) {
+            current = elseBlock;
+            conditionalStmt.getElseBody().accept(this);
+            current.jump(after);
+        }
+        current = after;
+        return null;
+    }
+
+    @Override
+    public Operand visit(LoopStmt loopStmt) {
+        BasicBlock body = graph.newBlock();
+        BasicBlock after = graph.newBlock();
+        if (loopStmt.getIsDoWhile()) {
+            current.jump(body);
+            current = body;
+            loopStmt.getBody().accept(this);
+            Operand condition = loopStmt.getCondition().accept(this);
+            current.branch(condition, body, after);
+        }
+        else {
+            BasicBlock header = graph.newBlock();
+            current.jump(header);
+            current = header;
+            Operand condition = loopStmt.getCondition().accept(this);
+            current.branch(condition, body, after);
+            current = body;
+            loopStmt.getBody().accept(this);
+            current.jump(header);
+        }
+        current = after;
+        return null;
+    }
+
+    @Override
+    public Operand visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Operand visit(DisplayStmt displayStmt) {
+        if (!isPrimitive(displayStmt.getArg().getType()))
+            throw new UnsupportedConstructException();
+        Operand value = displayStmt.getArg().accept(this);
+        current.add(new IrInstruction(IrOpcode.DISPLAY, null, value));
+        return null;
+    }
+
+    @Override
+    public Operand visit(ReturnStmt returnStmt) {
+        Expression returned = returnStmt.getReturnedExpr();
+        if (returned == null || returned.getType() instanceof VoidType)
+            current.ret(null);
+        else {
+            Operand value = returned.accept(this);
+            current.ret(value);
+        }
+        startUnreachable();
+        return null;
+    }
+
+    @Override
+    public Operand visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration variableDeclaration : varDecStmt.getVars())
+            variableDeclaration.accept(this);
+        return null;
+    }
+
+    @Override
+    public Operand visit(ListAppendStmt listAppendStmt) {
+        throw new UnsupportedConstructException();
+    }
+
+    @Override
+    public Operand visit(ListSizeStmt listSizeStmt) {
+        throw new UnsupportedConstructException();
+    }
+
+    //and/or only evaluate their second operand when the first does not decide the result
+    private Operand shortCircuit(BinaryExpression binaryExpression, boolean isAnd) {
+        Variable result = new Variable("%" + numberOfTemporaries++, true, false);
+        Operand first = binaryExpression.getFirstOperand().accept(this);
+        current.add(new IrInstruction(IrOpcode.COPY, result, first));
+        BasicBlock second = graph.newBlock();
+        BasicBlock after = graph.newBlock();
+        if (isAnd)
+            current.branch(first, second, after);
+        else
+            current.branch(first, after, second);
+        current = second;
+        Operand value = binaryExpression.getSecondOperand().accept(this);
+        current.add(new IrInstruction(IrOpcode.COPY, result, value));
+        current.jump(after);
+        current = after;
+        return Operand.of(result);
+    }
+
+    @Override
+    public Operand visit(BinaryExpression binaryExpression) {
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        if (operator == BinaryOperator.assign) {
+            if (!(binaryExpression.getFirstOperand() instanceof Identifier))
+                throw new UnsupportedConstructException();
+            Variable variable = lookup(((Identifier) binaryExpression.getFirstOperand()).getName());
+            Operand value = binaryExpression.getSecondOperand().accept(this);
+            current.add(new IrInstruction(IrOpcode.COPY, variable, value));
+            return Operand.of(variable);
+        }
+        if (operator == BinaryOperator.and || operator == BinaryOperator.or)
+            return shortCircuit(binaryExpression, operator == BinaryOperator.and);
+
+        Operand first = binaryExpression.getFirstOperand().accept(this);
+        Operand second = binaryExpression.getSecondOperand().accept(this);
+        switch (operator) {
+            case add:
+                return emit(IrOpcode.ADD, new IntType(), first, second);
+            case sub:
+                return emit(IrOpcode.SUB, new IntType(), first, second);
+            case mult:
+                return emit(IrOpcode.MUL, new IntType(), first, second);
+            case div:
+                return emit(IrOpcode.DIV, new IntType(), first, second);
+            case lt:
+                return emit(IrOpcode.LT, new BoolType(), first, second);
+            case gt:
+                return emit(IrOpcode.GT, new BoolType(), first, second);
+            case eq:
+                if (!isPrimitive(binaryExpression.getFirstOperand().getType()))
+                    throw new UnsupportedConstructException();
+                return emit(IrOpcode.EQ, new BoolType(), first, second);
+            default:
+                throw new UnsupportedConstructException();
+        }
+    }
+
+    @Override
+    public Operand visit(UnaryExpression unaryExpression) {
+        Operand operand = unaryExpression.getOperand().accept(this);
+        if (unaryExpression.getOperator() == UnaryOperator.minus)
+            return emit(IrOpcode.NEG, new IntType(), operand);
+        return emit(IrOpcode.NOT, new BoolType(), operand);
+    }
+
+    @Override
+    public Operand visit(StructAccess structAccess) {
+        throw new UnsupportedConstructException();
+    }
+
+    @Override
+    public Operand visit(Identifier identifier) {
+        if (knownFunction(identifier) != null)
+            throw new UnsupportedConstructException();
+        return Operand.of(lookup(identifier.getName()));
+    }
+
+    @Override
+    public Operand visit(ListAccessByIndex listAccessByIndex) {
+        throw new UnsupportedConstructException();
+    }
+
+    @Override
+    public Operand visit(FunctionCall functionCall) {
+        FunctionSymbolTableItem callee = knownFunction(functionCall.getInstance());
+        if (callee == null)
+            throw new UnsupportedConstructException();
+        for (Type argType : callee.getArgTypes())
+            if (!isPrimitive(argType))
+                throw new UnsupportedConstructException();
+        ArrayList<Operand> args = new ArrayList<>();
+        for (Expression arg : functionCall.getArgs())
+            args.add(arg.accept(this));
+
+        Type returnType = callee.getReturnType();
+        Variable target = returnType instanceof VoidType ? null : temporary(returnType);
+        current.add(IrInstruction.call(callee, target, args));
+        return target == null ? null : Operand.of(target);
+    }
+
+    @Override
+    public Operand visit(ListSize listSize) {
+        throw new UnsupportedConstructException();
+    }
+
+    @Override
+    public Operand visit(ListAppend listAppend) {
+        throw new UnsupportedConstructException();
+    }
+
+    @Override
+    public Operand visit(IntValue intValue) {
+        return Operand.of(intValue.getConstant());
+    }
+
+    @Override
+    public Operand visit(BoolValue boolValue) {
+        return Operand.of(boolValue.getConstant());
+    }
+
+    @Override
+    public Operand visit(ExprInPar exprInPar) {
+        return exprInPar.getInputs().get(0).accept(this);
+    }
+}
@@ -0,0 +1,66 @@
+package main.ir;
+
+import main.symbolTable.items.FunctionSymbolTableItem;
+
+import java.util.*;
+
+public class IrInstruction {
+    private final IrOpcode opcode;
+    private Variable target;
+    private final ArrayList<Operand> operands;
+    private FunctionSymbolTableItem callee;
+
+    public IrInstruction(IrOpcode opcode, Variable target, Operand... operands) {
+        this.opcode = opcode;
+        this.target = target;
+        this.operands = new ArrayList<>(Arrays.asList(operands));
+    }
+
+    public static IrInstruction call(FunctionSymbolTableItem callee, Variable target, ArrayList<Operand> args) {
+        IrInstruction instruction = new IrInstruction(IrOpcode.CALL, target);
+        instruction.operands.addAll(args);
+        instruction.callee = callee;
+        return instruction;
+    }
+
+    public IrOpcode getOpcode() {
+        return opcode;
+    }
+
+    public Variable getTarget() {
+        return target;
+    }
+
+    public void setTarget(Variable target) {
+        this.target = target;
+    }
+
+    public ArrayList<Operand> getOperands() {
+        return operands;
+    }
+
+    public Operand getOperand(int index) {
+        return operands.get(index);
+    }
+
+    public void setOperand(int index, Operand operand) {
+        operands.set(index, operand);
+    }
+
+    public FunctionSymbolTableItem getCallee() {
+        return callee;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        if (target != null)
+            text.append(target).append(" = ");
+        text.append(opcode.name().toLowerCase());
+        if (callee != null)
+            text.append(" ").append(callee.getName());
+        for (Operand operand : operands)
+            text.append(" ").append(operand);
+        return text.toString();
+    }
+}
@@ -0,0 +1,295 @@
+package main.ir;
+
+import main.ast.types.Type;
+import main.ast.types.primitives.*;
+import main.visitor.codeGenerator.InstructionList;
+import main.visitor.codeGenerator.Opcode;
+
+import java.util.*;
+
+//emits the body of a method from its SSA graph; every version of a local shares the local's slot,
+//so phis only need copies where a constant reaches them
+public class IrLowering {
+    private final ControlFlowGraph graph;
+    private final InstructionList code = new InstructionList();
+    private final Map<Variable, Integer> slots = new HashMap<>();
+    private final Set<Variable> blockLocal = new HashSet<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int numberOfSlots;
+    private int numberOfLabels = 0;
+
+    private IrLowering(ControlFlowGraph graph) {
+        this.graph = graph;
+        this.numberOfSlots = 1;
+        for (Variable param : graph.getParams())
+            slots.put(param.getBase(), numberOfSlots++);
+    }
+
+    public static InstructionList lower(ControlFlowGraph graph) {
+        IrLowering lowering = new IrLowering(graph);
+        lowering.findBlockLocalTemporaries();
+        ArrayList<BasicBlock> blocks = graph.getBlocks();
+        for (int i = 0; i < blocks.size(); i++)
+            lowering.lower(blocks.get(i), i + 1 < blocks.size() ? blocks.get(i + 1) : null);
+        return lowering.code;
+    }
+
+    //temporaries read only in the block that computes them can share slots once they are dead
+    private void findBlockLocalTemporaries() {
+        Map<Variable, BasicBlock> definedIn = new HashMap<>();
+        Set<Variable> usedElsewhere = new HashSet<>();
+        for (BasicBlock block : graph.getBlocks())
+            for (IrInstruction instruction : block.getInstructions())
+                if (instruction.getTarget() != null && instruction.getTarget().isTemporary())
+                    definedIn.put(instruction.getTarget(), block);
+        for (BasicBlock block : graph.getBlocks()) {
+            for (Operand operand : operandsOf(block))
+                if (!operand.isConstant() && definedIn.get(operand.getVariable()) != block)
+                    usedElsewhere.add(operand.getVariable());
+        }
+        for (Variable temporary : definedIn.keySet())
+            if (!usedElsewhere.contains(temporary))
+                blockLocal.add(temporary);
+    }
+
+    private static ArrayList<Operand> operandsOf(BasicBlock block) {
+        ArrayList<Operand> operands = new ArrayList<>();
+        for (IrInstruction phi : block.getPhis())
+            operands.addAll(phi.getOperands());
+        for (IrInstruction instruction : block.getInstructions())
+            operands.addAll(instruction.getOperands());
+        if (block.getExitOperand() != null)
+            operands.add(block.getExitOperand());
+        return operands;
+    }
+
+    private int slotOf(Variable variable) {
+        Variable base = variable.getBase();
+        Integer slot = slots.get(base);
+        if (slot == null) {
+            slot = blockLocal.contains(variable) && !freeSlots.isEmpty() ? freeSlots.pop() : numberOfSlots++;
+            slots.put(base, slot);
+        }
+        return slot;
+    }
+
+    private String getFreshLabel() {
+        return "Ir_" + numberOfLabels++;
+    }
+
+    private void load(Operand operand) {
+        if (operand.isConstant())
+            code.add(Opcode.LDC, operand.getConstant());
+        else
+            code.add(Opcode.ILOAD, slotOf(operand.getVariable()));
+    }
+
+    private void store(Variable target) {
+        code.add(Opcode.ISTORE, slotOf(target));
+    }
+
+    private void box(Type type) {
+        if (type instanceof BoolType)
+            code.add(Opcode.INVOKESTATIC, "java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;");
+        else
+            code.add(Opcode.INVOKESTATIC, "java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
+    }
+
+    private void unbox(Type type) {
+        if (type instanceof BoolType)
+            code.add(Opcode.INVOKEVIRTUAL, "java/lang/Boolean/booleanValue()Z");
+        else
+            code.add(Opcode.INVOKEVIRTUAL, "java/lang/Integer/intValue()I");
+    }
+
+    private static String boxedDescriptor(Type type) {
+        if (type instanceof VoidType)
+            return "V";
+        return type instanceof BoolType ? "Ljava/lang/Boolean;" : "Ljava/lang/Integer;";
+    }
+
+    private void compare(Opcode jumpIfFalse) {
+        String labelFalse = getFreshLabel();
+        String labelAfter = getFreshLabel();
+        code.add(jumpIfFalse, labelFalse);
+        code.add(Opcode.LDC, 1);
+        code.add(Opcode.GOTO, labelAfter);
+        code.addLabel(labelFalse);
+        code.add(Opcode.LDC, 0);
+        code.addLabel(labelAfter);
+    }
+
+    private void call(IrInstruction instruction) {
+        ArrayList<Type> argTypes = instruction.getCallee().getArgTypes();
+        Type returnType = instruction.getCallee().getReturnType();
+        StringBuilder descriptor = new StringBuilder("(");
+        code.add(Opcode.ALOAD, 0);
+        for (int i = 0; i < argTypes.size(); i++) {
+            load(instruction.getOperand(i));
+            box(argTypes.get(i));
+            descriptor.append(boxedDescriptor(argTypes.get(i)));
+        }
+        descriptor.append(")").append(boxedDescriptor(returnType));
+        code.add(Opcode.INVOKEVIRTUAL, "Main/" + instruction.getCallee().getName() + descriptor);
+        if (instruction.getTarget() != null) {
+            unbox(returnType);
+            store(instruction.getTarget());
+        }
+        else if (!(returnType instanceof VoidType))
+            code.add(Opcode.POP);
+    }
+
+    private void lower(IrInstruction instruction) {
+        if (instruction.getOpcode() == IrOpcode.CALL) {
+            call(instruction);
+            return;
+        }
+        if (instruction.getOpcode() == IrOpcode.DISPLAY) {
+            code.add(Opcode.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
+            load(instruction.getOperand(0));
+            code.add(Opcode.INVOKEVIRTUAL, "java/io/PrintStream/println(" + (instruction.getOperand(0).isBool() ? "Z" : "I") + ")V");
+            return;
+        }
+        for (Operand operand : instruction.getOperands())
+            load(operand);
+        switch (instruction.getOpcode()) {
+            case ADD:
+                code.add(Opcode.IADD);
+                break;
+            case SUB:
+                code.add(Opcode.ISUB);
+                break;
+            case MUL:
+                code.add(Opcode.IMUL);
+                break;
+            case DIV:
+                code.add(Opcode.IDIV);
+                break;
+            case NEG:
+                code.add(Opcode.INEG);
+                break;
+            case NOT:
+                code.add(Opcode.ICONST_1);
+                code.add(Opcode.IXOR);
+                break;
+            case LT:
+                compare(Opcode.IF_ICMPGE);
+                break;
+            case GT:
+                compare(Opcode.IF_ICMPLE);
+                break;
+            case EQ:
+                compare(Opcode.IF_ICMPNE);
+                break;
+            default:
+                break;
+        }
+        //a division kept only because it may throw has no target left to store into
+        if (instruction.getTarget() != null)
+            store(instruction.getTarget());
+        else
+            code.add(Opcode.POP);
+    }
+
+    //operands of phis are versions of the phi's own local, so only constants need an actual copy
+    private boolean needsCopies(BasicBlock from, BasicBlock to) {
+        int index = to.getPredecessors().indexOf(from);
+        for (IrInstruction phi : to.getPhis()) {
+            Operand operand = phi.getOperand(index);
+            if (operand.isConstant() || slotOf(operand.getVariable()) != slotOf(phi.getTarget()))
+                return true;
+        }
+        return false;
+    }
+
+    private void copyAlongEdge(BasicBlock from, BasicBlock to) {
+        int index = to.getPredecessors().indexOf(from);
+        for (IrInstruction phi : to.getPhis()) {
+            Operand operand = phi.getOperand(index);
+            if (!operand.isConstant() && slotOf(operand.getVariable()) == slotOf(phi.getTarget()))
+                continue;
+            load(operand);
+            store(phi.getTarget());
+        }
+    }
+
+    private void jump(BasicBlock from, BasicBlock to, BasicBlock next) {
+        copyAlongEdge(from, to);
+        if (to != next)
+            code.add(Opcode.GOTO, to.getLabel());
+    }
+
+    private void lower(BasicBlock block, BasicBlock next) {
+        code.addLabel(block.getLabel());
+        ArrayList<IrInstruction> instructions = block.getInstructions();
+        Map<Variable, Integer> lastUses = new HashMap<>();
+        for (int i = 0; i < instructions.size(); i++)
+            for (Operand operand : instructions.get(i).getOperands())
+                if (!operand.isConstant())
+                    lastUses.put(operand.getVariable(), i);
+        if (block.getExitOperand() != null && !block.getExitOperand().isConstant())
+            lastUses.put(block.getExitOperand().getVariable(), instructions.size());
+
+        for (int i = 0; i < instructions.size(); i++) {
+            lower(instructions.get(i));
+            for (Operand operand : instructions.get(i).getOperands())
+                release(operand, lastUses, i);
+        }
+
+        Operand exitOperand = block.getExitOperand();
+        switch (block.getExit()) {
+            case JUMP:
+                jump(block, block.getSuccessors().get(0), next);
+                break;
+            case BRANCH: {
+                BasicBlock ifTrue = block.getSuccessors().get(0);
+                BasicBlock ifFalse = block.getSuccessors().get(1);
+                if (exitOperand.isConstant()) {
+                    jump(block, exitOperand.getConstant() != 0 ? ifTrue : ifFalse, next);
+                    break;
+                }
+                if (ifFalse == next && !needsCopies(block, ifTrue) && !needsCopies(block, ifFalse)) {
+                    load(exitOperand);
+                    code.add(Opcode.IFNE, ifTrue.getLabel());
+                    break;
+                }
+                boolean trampoline = needsCopies(block, ifFalse);
+                String labelFalse = trampoline ? getFreshLabel() : ifFalse.getLabel();
+                load(exitOperand);
+                code.add(Opcode.IFEQ, labelFalse);
+                copyAlongEdge(block, ifTrue);
+                if (ifTrue != next || trampoline)
+                    code.add(Opcode.GOTO, ifTrue.getLabel());
+                if (trampoline) {
+                    code.addLabel(labelFalse);
+                    jump(block, ifFalse, next);
+                }
+                break;
+            }
+            case RETURN:
+                if (exitOperand != null) {
+                    load(exitOperand);
+                    box(graph.getReturnType());
+                    code.add(Opcode.ARETURN);
+                }
+                else if (graph.getReturnType() instanceof VoidType)
+                    code.add(Opcode.RETURN);
+                else {
+                    code.add(Opcode.ACONST_NULL);
+                    code.add(Opcode.ARETURN);
+                }
+                break;
+        }
+        if (exitOperand != null && !exitOperand.isConstant())
+            release(exitOperand, lastUses, instructions.size());
+    }
+
+    private void release(Operand operand, Map<Variable, Integer> lastUses, int index) {
+        if (operand.isConstant() || !blockLocal.contains(operand.getVariable()))
+            return;
+        if (lastUses.get(operand.getVariable()) == index && slots.containsKey(operand.getVariable().getBase())) {
+            freeSlots.push(slots.get(operand.getVariable().getBase()));
+            slots.remove(operand.getVariable().getBase());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package main.ir;
+
+public enum IrOpcode {
+    COPY, ADD, SUB, MUL, DIV, NEG, NOT, LT, GT, EQ, CALL, DISPLAY, PHI;
+
+    //instructions that cannot throw or be seen from outside may go once nothing reads their result
+    public boolean isPure() {
+        return this != DIV && this != CALL && this != DISPLAY;
+    }
+}
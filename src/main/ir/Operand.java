@@ -0,0 +1,50 @@
+package main.ir;
+
+//either an int or bool constant or a variable
+public class Operand {
+    private final Variable variable;
+    private final int constant;
+    private final boolean bool;
+
+    private Operand(Variable variable, int constant, boolean bool) {
+        this.variable = variable;
+        this.constant = constant;
+        this.bool = bool;
+    }
+
+    public static Operand of(Variable variable) {
+        return new Operand(variable, 0, variable.isBool());
+    }
+
+    public static Operand of(int constant) {
+        return new Operand(null, constant, false);
+    }
+
+    public static Operand of(boolean constant) {
+        return new Operand(null, constant ? 1 : 0, true);
+    }
+
+    public boolean isConstant() {
+        return variable == null;
+    }
+
+    public Variable getVariable() {
+        return variable;
+    }
+
+    //bools are kept as 0 and 1, the same way the JVM sees them
+    public int getConstant() {
+        return constant;
+    }
+
+    public boolean isBool() {
+        return bool;
+    }
+
+    @Override
+    public String toString() {
+        if (variable != null)
+            return variable.toString();
+        return bool ? String.valueOf(constant != 0) : String.valueOf(constant);
+    }
+}
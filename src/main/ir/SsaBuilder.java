@@ -0,0 +1,167 @@
+package main.ir;
+
+import java.util.*;
+
+//puts an ordered graph into SSA form: phis go on the dominance frontiers of every definition, then uses are renamed
+public class SsaBuilder {
+    private final ControlFlowGraph graph;
+    private final Map<BasicBlock, BasicBlock> immediateDominators = new HashMap<>();
+    private final Map<BasicBlock, ArrayList<BasicBlock>> dominatorTree = new HashMap<>();
+    private final Map<BasicBlock, Set<BasicBlock>> frontiers = new HashMap<>();
+    private final Map<Variable, Deque<Variable>> versions = new HashMap<>();
+    private final Map<Variable, Integer> numberOfVersions = new HashMap<>();
+
+    private SsaBuilder(ControlFlowGraph graph) {
+        this.graph = graph;
+    }
+
+    public static void build(ControlFlowGraph graph) {
+        SsaBuilder builder = new SsaBuilder(graph);
+        builder.findDominators();
+        builder.findFrontiers();
+        builder.placePhis();
+        builder.rename(graph.getEntry());
+    }
+
+    //Cooper, Harvey and Kennedy's iteration over blocks in reverse postorder
+    private void findDominators() {
+        ArrayList<BasicBlock> blocks = graph.getBlocks();
+        Map<BasicBlock, Integer> order = new HashMap<>();
+        for (int i = 0; i < blocks.size(); i++)
+            order.put(blocks.get(i), i);
+        BasicBlock entry = graph.getEntry();
+        immediateDominators.put(entry, entry);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : blocks) {
+                if (block == entry)
+                    continue;
+                BasicBlock dominator = null;
+                for (BasicBlock predecessor : block.getPredecessors()) {
+                    if (!immediateDominators.containsKey(predecessor))
+                        continue;
+                    dominator = dominator == null ? predecessor : intersect(predecessor, dominator, order);
+                }
+                if (dominator != immediateDominators.get(block)) {
+                    immediateDominators.put(block, dominator);
+                    changed = true;
+                }
+            }
+        }
+        for (BasicBlock block : blocks)
+            dominatorTree.put(block, new ArrayList<>());
+        for (BasicBlock block : blocks)
+            if (block != entry)
+                dominatorTree.get(immediateDominators.get(block)).add(block);
+    }
+
+    private BasicBlock intersect(BasicBlock first, BasicBlock second, Map<BasicBlock, Integer> order) {
+        while (first != second) {
+            while (order.get(first) > order.get(second))
+                first = immediateDominators.get(first);
+            while (order.get(second) > order.get(first))
+                second = immediateDominators.get(second);
+        }
+        return first;
+    }
+
+    private void findFrontiers() {
+        for (BasicBlock block : graph.getBlocks())
+            frontiers.put(block, new HashSet<>());
+        for (BasicBlock block : graph.getBlocks()) {
+            if (block.getPredecessors().size() < 2)
+                continue;
+            for (BasicBlock predecessor : block.getPredecessors()) {
+                BasicBlock runner = predecessor;
+                while (runner != immediateDominators.get(block)) {
+                    frontiers.get(runner).add(block);
+                    runner = immediateDominators.get(runner);
+                }
+            }
+        }
+    }
+
+    private void placePhis() {
+        Map<Variable, Set<BasicBlock>> definitions = new LinkedHashMap<>();
+        for (Variable param : graph.getParams())
+            definitions.computeIfAbsent(param, variable -> new LinkedHashSet<>()).add(graph.getEntry());
+        for (BasicBlock block : graph.getBlocks())
+            for (IrInstruction instruction : block.getInstructions())
+                if (instruction.getTarget() != null)
+                    definitions.computeIfAbsent(instruction.getTarget(), variable -> new LinkedHashSet<>()).add(block);
+
+        for (Map.Entry<Variable, Set<BasicBlock>> definition : definitions.entrySet()) {
+            Variable variable = definition.getKey();
+            if (variable.isTemporary())
+                continue;
+            Set<BasicBlock> hasPhi = new HashSet<>();
+            Deque<BasicBlock> worklist = new ArrayDeque<>(definition.getValue());
+            while (!worklist.isEmpty()) {
+                for (BasicBlock frontier : frontiers.get(worklist.pop())) {
+                    if (!hasPhi.add(frontier))
+                        continue;
+                    Operand[] operands = new Operand[frontier.getPredecessors().size()];
+                    Arrays.fill(operands, Operand.of(variable));
+                    frontier.getPhis().add(new IrInstruction(IrOpcode.PHI, variable, operands));
+                    if (!definition.getValue().contains(frontier))
+                        worklist.push(frontier);
+                }
+            }
+        }
+    }
+
+    private Variable define(Variable variable) {
+        Variable base = variable.getBase();
+        int version = numberOfVersions.getOrDefault(base, 0) + 1;
+        numberOfVersions.put(base, version);
+        Variable renamed = base.newVersion(version);
+        versions.computeIfAbsent(base, key -> new ArrayDeque<>()).push(renamed);
+        return renamed;
+    }
+
+    //every local is initialized where it is declared, so a use with no reaching definition never runs
+    private Operand use(Operand operand) {
+        if (operand.isConstant())
+            return operand;
+        Deque<Variable> stack = versions.get(operand.getVariable().getBase());
+        if (stack == null || stack.isEmpty())
+            return operand.isBool() ? Operand.of(false) : Operand.of(0);
+        return Operand.of(stack.peek());
+    }
+
+    private void rename(BasicBlock block) {
+        ArrayList<Variable> defined = new ArrayList<>();
+        if (block == graph.getEntry()) {
+            ArrayList<Variable> params = graph.getParams();
+            for (int i = 0; i < params.size(); i++) {
+                defined.add(params.get(i));
+                params.set(i, define(params.get(i)));
+            }
+        }
+        for (IrInstruction phi : block.getPhis()) {
+            defined.add(phi.getTarget());
+            phi.setTarget(define(phi.getTarget()));
+        }
+        for (IrInstruction instruction : block.getInstructions()) {
+            for (int i = 0; i < instruction.getOperands().size(); i++)
+                instruction.setOperand(i, use(instruction.getOperand(i)));
+            if (instruction.getTarget() != null) {
+                defined.add(instruction.getTarget());
+                instruction.setTarget(define(instruction.getTarget()));
+            }
+        }
+        if (block.getExitOperand() != null)
+            block.setExitOperand(use(block.getExitOperand()));
+
+        for (BasicBlock successor : block.getSuccessors()) {
+            int index = successor.getPredecessors().indexOf(block);
+            for (IrInstruction phi : successor.getPhis())
+                phi.setOperand(index, use(Operand.of(phi.getTarget().getBase())));
+        }
+        for (BasicBlock child : dominatorTree.get(block))
+            rename(child);
+        for (Variable variable : defined)
+            versions.get(variable.getBase()).pop();
+    }
+}
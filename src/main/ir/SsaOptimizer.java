@@ -0,0 +1,144 @@
+package main.ir;
+
+import java.util.*;
+
+//propagates constants through SSA values and drops the values nothing reads
+public class SsaOptimizer {
+    private final ControlFlowGraph graph;
+    private final Map<Variable, Operand> constants = new HashMap<>();
+    private int numberOfRemoved = 0;
+
+    private SsaOptimizer(ControlFlowGraph graph) {
+        this.graph = graph;
+    }
+
+    //returns how many instructions were removed
+    public static int optimize(ControlFlowGraph graph) {
+        SsaOptimizer optimizer = new SsaOptimizer(graph);
+        optimizer.propagateConstants();
+        optimizer.removeDeadValues();
+        return optimizer.numberOfRemoved;
+    }
+
+    private Operand substitute(Operand operand) {
+        if (operand.isConstant())
+            return operand;
+        return constants.getOrDefault(operand.getVariable(), operand);
+    }
+
+    private static Operand fold(IrInstruction instruction) {
+        ArrayList<Operand> operands = instruction.getOperands();
+        for (Operand operand : operands)
+            if (!operand.isConstant())
+                return null;
+        switch (instruction.getOpcode()) {
+            case COPY:
+                return operands.get(0);
+            case ADD:
+                return Operand.of(operands.get(0).getConstant() + operands.get(1).getConstant());
+            case SUB:
+                return Operand.of(operands.get(0).getConstant() - operands.get(1).getConstant());
+            case MUL:
+                return Operand.of(operands.get(0).getConstant() * operands.get(1).getConstant());
+            case DIV:
+                if (operands.get(1).getConstant() == 0) //a DIV by zero is kept so the lowered method still throws
+                    return null;
+                return Operand.of(operands.get(0).getConstant() / operands.get(1).getConstant());
+            case NEG:
+                return Operand.of(-operands.get(0).getConstant());
+            case NOT:
+                return Operand.of(operands.get(0).getConstant() == 0);
+            case LT:
+                return Operand.of(operands.get(0).getConstant() < operands.get(1).getConstant());
+            case GT:
+                return Operand.of(operands.get(0).getConstant() > operands.get(1).getConstant());
+            case EQ:
+                return Operand.of(operands.get(0).getConstant() == operands.get(1).getConstant());
+            case PHI:
+                for (Operand operand : operands)
+                    if (operand.getConstant() != operands.get(0).getConstant())
+                        return null;
+                return operands.get(0);
+            default:
+                return null;
+        }
+    }
+
+    //folds one list of instructions, returning whether anything new became constant
+    private boolean propagate(ArrayList<IrInstruction> instructions) {
+        boolean changed = false;
+        Iterator<IrInstruction> iterator = instructions.iterator();
+        while (iterator.hasNext()) {
+            IrInstruction instruction = iterator.next();
+            for (int i = 0; i < instruction.getOperands().size(); i++)
+                instruction.setOperand(i, substitute(instruction.getOperand(i)));
+            Operand folded = fold(instruction);
+            if (folded != null) {
+                constants.put(instruction.getTarget(), folded);
+                iterator.remove();
+                numberOfRemoved++;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void propagateConstants() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : graph.getBlocks()) {
+                changed |= propagate(block.getPhis());
+                changed |= propagate(block.getInstructions());
+                if (block.getExitOperand() != null)
+                    block.setExitOperand(substitute(block.getExitOperand()));
+            }
+        }
+    }
+
+    private void count(Map<Variable, Integer> uses, Operand operand, Variable user) {
+        if (!operand.isConstant() && operand.getVariable() != user)
+            uses.merge(operand.getVariable(), 1, Integer::sum);
+    }
+
+    private boolean removeUnused(ArrayList<IrInstruction> instructions, Map<Variable, Integer> uses) {
+        boolean changed = false;
+        Iterator<IrInstruction> iterator = instructions.iterator();
+        while (iterator.hasNext()) {
+            IrInstruction instruction = iterator.next();
+            Variable target = instruction.getTarget();
+            if (target == null || uses.containsKey(target))
+                continue;
+            if (instruction.getOpcode().isPure()) {
+                iterator.remove();
+                numberOfRemoved++;
+                changed = true;
+            }
+            else
+                instruction.setTarget(null);
+        }
+        return changed;
+    }
+
+    private void removeDeadValues() {
+        boolean changed = true;
+        while (changed) {
+            Map<Variable, Integer> uses = new HashMap<>();
+            for (BasicBlock block : graph.getBlocks()) {
+                for (IrInstruction phi : block.getPhis())
+                    for (Operand operand : phi.getOperands())
+                        count(uses, operand, phi.getTarget());
+                for (IrInstruction instruction : block.getInstructions())
+                    for (Operand operand : instruction.getOperands())
+                        count(uses, operand, null);
+                if (block.getExitOperand() != null)
+                    count(uses, block.getExitOperand(), null);
+            }
+            changed = false;
+            for (BasicBlock block : graph.getBlocks()) {
+                changed |= removeUnused(block.getPhis(), uses);
+                changed |= removeUnused(block.getInstructions(), uses);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package main.ir;
+
+//a local, an argument or a temporary; SSA versions point back to the variable they were renamed from
+public class Variable {
+    private final String name;
+    private final boolean bool;
+    private final boolean temporary;
+    private final Variable base;
+    private final int version;
+
+    public Variable(String name, boolean bool, boolean temporary) {
+        this(name, bool, temporary, null, 0);
+    }
+
+    private Variable(String name, boolean bool, boolean temporary, Variable base, int version) {
+        this.name = name;
+        this.bool = bool;
+        this.temporary = temporary;
+        this.base = base;
+        this.version = version;
+    }
+
+    public Variable newVersion(int version) {
+        return new Variable(name, bool, temporary, getBase(), version);
+    }
+
+    public Variable getBase() {
+        return base == null ? this : base;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isBool() {
+        return bool;
+    }
+
+    public boolean isTemporary() {
+        return temporary;
+    }
+
+    @Override
+    public String toString() {
+        return base == null ? name : name + "_" + version;
+    }
+}
@@ -0,0 +1,6 @@
+package main.ir.exceptions;
+
+
+//thrown while building the IR for a body that uses something the IR has no instruction for
+public class UnsupportedConstructException extends RuntimeException {
+}
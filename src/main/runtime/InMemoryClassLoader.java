@@ -0,0 +1,28 @@
+package main.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class InMemoryClassLoader extends ClassLoader {
+    private final Map<String, byte[]> classes = new HashMap<>();
+
+    public InMemoryClassLoader() {
+        super(InMemoryClassLoader.class.getClassLoader());
+    }
+
+    public void addClass(String className, byte[] bytes) {
+        classes.put(className, bytes);
+    }
+
+    public void addClasses(Map<String, byte[]> classes) {
+        this.classes.putAll(classes);
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classes.get(name.replace('.', '/'));
+        if (bytes == null)
+            throw new ClassNotFoundException(name);
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
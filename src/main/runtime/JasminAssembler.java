@@ -0,0 +1,54 @@
+package main.runtime;
+
+import jasmin.ClassFile;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class JasminAssembler {
+    //jasmin keeps parts of its scanner in statics, so files are assembled one at a time
+    private static final Object JASMIN_LOCK = new Object();
+
+    private final Map<String, byte[]> classes = new LinkedHashMap<>();
+    private int numberOfErrors = 0;
+    private boolean quiet = false;
+
+    //a quiet assembler only reports errors
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    public void assemble(String sourceName, Reader source) {
+        try {
+            ClassFile classFile = new ClassFile();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            synchronized (JASMIN_LOCK) {
+                classFile.readJasmin(new BufferedReader(source), sourceName, false);
+                if (classFile.errorCount() == 0)
+                    classFile.write(bytes);
+            }
+            if (classFile.errorCount() > 0) {
+                System.out.println(sourceName + ": Found " + classFile.errorCount() + " errors");
+                numberOfErrors += classFile.errorCount();
+                return;
+            }
+            classes.put(classFile.getClassName(), bytes.toByteArray());
+            if (!quiet)
+                System.out.println("Generated: " + classFile.getClassName() + ".class");
+        } catch (Exception e) {
+            e.printStackTrace();
+            numberOfErrors += 1;
+        }
+    }
+
+    public Map<String, byte[]> getClasses() {
+        return classes;
+    }
+
+    public int getNumberOfErrors() {
+        return numberOfErrors;
+    }
+}
@@ -0,0 +1,105 @@
+package main.server;
+
+import main.Cmm;
+import main.CmmCompiler;
+import main.CompileResult;
+import main.compileError.CompileError;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//keeps one JVM compiling and running programs sent to a local port, so the parser and the JIT stay warm.
+//a request is one line of the usual command line options followed by the program; once the client shuts
+//its side of the connection the answer comes back as one JSON object:
+//{"successful": false, "errors": [{"line": 3, "message": "..."}], "output": "..."}
+//where output is everything the compiler and the program printed. Programs always run in process.
+public class CompileServer {
+    private final int port;
+    private final ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    public CompileServer(int port) {
+        this.port = port;
+    }
+
+    public void serve() throws IOException {
+        ThreadOutputStream.install();
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Listening on port " + serverSocket.getLocalPort());
+            while (true) {
+                Socket client = serverSocket.accept();
+                workers.execute(() -> handle(client));
+            }
+        }
+    }
+
+    private void handle(Socket client) {
+        try (Socket socket = client) {
+            Reader reader = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+            StringBuilder options = new StringBuilder();
+            int c;
+            while ((c = reader.read()) != -1 && c != '\n')
+                options.append((char) c);
+            StringBuilder source = new StringBuilder();
+            char[] buffer = new char[8192];
+            int length;
+            while ((length = reader.read(buffer)) != -1)
+                source.append(buffer, 0, length);
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(respond(options.toString().trim(), source.toString()));
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String respond(String options, String source) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CompileResult result = null;
+        ThreadOutputStream.capture(output);
+        try {
+            CmmCompiler cmmCompiler = new CmmCompiler();
+            cmmCompiler.setInProcess(true);
+            String[] args = options.isEmpty() ? new String[0] : options.split("\\s+");
+            Cmm.setOptions(cmmCompiler, args, args.length);
+            result = cmmCompiler.compile(CharStreams.fromString(source));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            ThreadOutputStream.release();
+        }
+        StringBuilder json = new StringBuilder("{\"successful\": ");
+        json.append(result != null && result.isSuccessful()).append(", \"errors\": [");
+        if (result != null)
+            for (int i = 0; i < result.getErrors().size(); i++) {
+                CompileError error = result.getErrors().get(i);
+                json.append(i == 0 ? "" : ", ").append("{\"line\": ").append(error.getLine())
+                        .append(", \"message\": ").append(quote(error.getDescription())).append('}');
+            }
+        json.append("], \"output\": ").append(quote(new String(output.toByteArray(), StandardCharsets.UTF_8)));
+        return json.append('}').toString();
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c == '\n')
+                quoted.append("\\n");
+            else if (c == '\t')
+                quoted.append("\\t");
+            else if (c < ' ')
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
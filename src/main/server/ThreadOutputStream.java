@@ -0,0 +1,50 @@
+package main.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+//stands in for System.out and System.err so that each request sees only what its own thread printed;
+//threads not capturing anything write where the stream used to go
+public class ThreadOutputStream extends OutputStream {
+    private static final ThreadLocal<OutputStream> captured = new ThreadLocal<>();
+
+    private final OutputStream fallback;
+
+    private ThreadOutputStream(OutputStream fallback) {
+        this.fallback = fallback;
+    }
+
+    public static void install() {
+        System.setOut(new PrintStream(new ThreadOutputStream(System.out), true));
+        System.setErr(new PrintStream(new ThreadOutputStream(System.err), true));
+    }
+
+    public static void capture(OutputStream output) {
+        captured.set(output);
+    }
+
+    public static void release() {
+        captured.remove();
+    }
+
+    private OutputStream target() {
+        OutputStream output = captured.get();
+        return output != null ? output : fallback;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        target().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        target().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target().flush();
+    }
+}
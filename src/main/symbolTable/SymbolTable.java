@@ -18,18 +18,34 @@ public class SymbolTable {
 
     //Start of static members
 
-    public static SymbolTable top;
-    public static SymbolTable root;
-    private static Stack<SymbolTable> stack = new Stack<>();
+    //each thread analyses its own program, so the scopes are kept per thread
+    private static final ThreadLocal<SymbolTable> top = new ThreadLocal<>();
+    private static final ThreadLocal<SymbolTable> root = new ThreadLocal<>();
+    private static final ThreadLocal<Stack<SymbolTable>> stack = ThreadLocal.withInitial(Stack::new);
+
+    public static SymbolTable top() {
+        return top.get();
+    }
+
+    public static SymbolTable root() {
+        return root.get();
+    }
+
+    //a new root starts a new program, so the scopes left from the last one are dropped
+    public static void setRoot(SymbolTable symbolTable) {
+        root.set(symbolTable);
+        top.remove();
+        stack.set(new Stack<>());
+    }
 
     public static void push(SymbolTable symbolTable) {
-        if (top != null)
-            stack.push(top);
-        top = symbolTable;
+        if (top.get() != null)
+            stack.get().push(top.get());
+        top.set(symbolTable);
     }
 
     public static void pop() {
-        top = stack.pop();
+        top.set(stack.get().pop());
     }
 
     //End of static members
@@ -15,11 +15,18 @@ import main.compileError.CompileError;
 import java.util.ArrayList;
 
 public class ErrorReporter extends Visitor<Integer> {
+    private final ArrayList<CompileError> reportedErrors = new ArrayList<>();
+
+    public ArrayList<CompileError> getReportedErrors() {
+        return reportedErrors;
+    }
+
     private int printErrors(Node node) {
         ArrayList<CompileError> errors = node.flushErrors();
         for(CompileError compileErrorException : errors) {
             System.out.println(compileErrorException.getMessage());
         }
+        reportedErrors.addAll(errors);
         return errors.size();
     }
 
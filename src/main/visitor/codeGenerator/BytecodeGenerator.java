@@ -0,0 +1,158 @@
+package main.visitor.codeGenerator;
+
+import org.objectweb.asm.*;
+
+import java.io.*;
+import java.util.*;
+
+public class BytecodeGenerator extends CodeGenerator {
+    private static final Handle FPTR_BOOTSTRAP = new Handle(Opcodes.H_INVOKESTATIC, "FptrLinker", "bootstrap",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
+            false);
+
+    private final Map<String, byte[]> classes = new LinkedHashMap<>();
+    private ClassWriter classWriter;
+    private int classAccess;
+    private MethodVisitor methodVisitor;
+    private Map<String, Label> labels;
+
+    public Map<String, byte[]> getClasses() {
+        return classes;
+    }
+
+    @Override
+    protected boolean supportsInvokeDynamic() {
+        return true;
+    }
+
+    @Override
+    protected void createFile(String name) {
+        closeFile();
+        classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return "java/lang/Object";
+            }
+        };
+        currentFileName = name;
+    }
+
+    @Override
+    protected void closeFile() {
+        if (classWriter == null)
+            return;
+        classWriter.visitEnd();
+        byte[] bytes = classWriter.toByteArray();
+        classes.put(currentFileName, bytes);
+        classWriter = null;
+        if (inMemory)
+            return;
+        try (OutputStream classFile = new FileOutputStream(this.outputPath + currentFileName + ".class")) {
+            classFile.write(bytes);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    protected void addCommand(String command) {
+        addDirective(command.trim().split("\\s+"));
+    }
+
+    private int accessOf(String[] tokens, int end) {
+        int access = 0;
+        for (int i = 1; i < end; i++) {
+            if (tokens[i].equals("public"))
+                access |= Opcodes.ACC_PUBLIC;
+            else if (tokens[i].equals("static"))
+                access |= Opcodes.ACC_STATIC;
+        }
+        return access;
+    }
+
+    private void addDirective(String[] tokens) {
+        switch (tokens[0]) {
+            case ".class":
+                classAccess = accessOf(tokens, tokens.length - 1) | Opcodes.ACC_SUPER;
+                break;
+            case ".super":
+                classWriter.visit(Opcodes.V1_8, classAccess, currentFileName, null, tokens[1], null);
+                break;
+            case ".field":
+                classWriter.visitField(0, tokens[1], tokens[2], null, null).visitEnd();
+                break;
+            case ".method":
+                String signature = tokens[tokens.length - 1];
+                int argsStart = signature.indexOf('(');
+                methodVisitor = classWriter.visitMethod(accessOf(tokens, tokens.length - 1),
+                        signature.substring(0, argsStart), signature.substring(argsStart), null, null);
+                methodVisitor.visitCode();
+                labels = new HashMap<>();
+                break;
+            case ".end":
+                methodVisitor.visitMaxs(0, 0);
+                methodVisitor.visitEnd();
+                methodVisitor = null;
+                break;
+            default: //.limit is computed by the class writer
+                break;
+        }
+    }
+
+    private Label labelOf(String name) {
+        return labels.computeIfAbsent(name, k -> new Label());
+    }
+
+    @Override
+    protected void addInstructions(InstructionList instructions) {
+        for (Instruction instruction : instructions)
+            addInstruction(instruction);
+    }
+
+    private void addInstruction(Instruction instruction) {
+        Opcode opcode = instruction.getOpcode();
+        String operand = instruction.getOperand();
+        int code = opcode.getCode();
+
+        if (opcode == Opcode.LABEL)
+            methodVisitor.visitLabel(labelOf(operand));
+        else if (opcode == Opcode.LDC) {
+            if (operand.startsWith("\""))
+                methodVisitor.visitLdcInsn(operand.substring(1, operand.length() - 1));
+            else
+                methodVisitor.visitLdcInsn(instruction.getIntOperand());
+        }
+        else if (opcode == Opcode.ILOAD || opcode == Opcode.ALOAD || opcode == Opcode.ISTORE || opcode == Opcode.ASTORE)
+            methodVisitor.visitVarInsn(code, instruction.getIntOperand());
+        else if (opcode == Opcode.BIPUSH || opcode == Opcode.SIPUSH)
+            methodVisitor.visitIntInsn(code, instruction.getIntOperand());
+        else if (opcode == Opcode.IINC) {
+            String[] operands = operand.split("\\s+");
+            methodVisitor.visitIincInsn(Integer.parseInt(operands[0]), Integer.parseInt(operands[1]));
+        }
+        else if (opcode.isJump())
+            methodVisitor.visitJumpInsn(code, labelOf(operand));
+        else if (opcode == Opcode.NEW || opcode == Opcode.CHECKCAST || opcode == Opcode.INSTANCEOF)
+            methodVisitor.visitTypeInsn(code, operand);
+        else if (code >= Opcodes.GETSTATIC && code <= Opcodes.PUTFIELD) {
+            String[] operands = operand.split("\\s+");
+            int nameStart = operands[0].lastIndexOf('/');
+            methodVisitor.visitFieldInsn(code, operands[0].substring(0, nameStart),
+                    operands[0].substring(nameStart + 1), operands[1]);
+        }
+        else if (code >= Opcodes.INVOKEVIRTUAL && code <= Opcodes.INVOKEINTERFACE) {
+            operand = operand.split("\\s+")[0];
+            int argsStart = operand.indexOf('(');
+            int nameStart = operand.lastIndexOf('/', argsStart);
+            methodVisitor.visitMethodInsn(code, operand.substring(0, nameStart),
+                    operand.substring(nameStart + 1, argsStart), operand.substring(argsStart),
+                    opcode == Opcode.INVOKEINTERFACE);
+        }
+        else if (opcode == Opcode.INVOKEDYNAMIC) {
+            int argsStart = operand.indexOf('(');
+            methodVisitor.visitInvokeDynamicInsn(operand.substring(0, argsStart), operand.substring(argsStart), FPTR_BOOTSTRAP);
+        }
+        else
+            methodVisitor.visitInsn(code);
+    }
+}
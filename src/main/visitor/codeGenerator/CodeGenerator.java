@@ -10,32 +10,48 @@ import main.ast.nodes.expression.values.primitive.*;
 import main.ast.nodes.statement.*;
 import main.ast.types.*;
 import main.ast.types.primitives.*;
+import main.ir.*;
 import main.symbolTable.*;
 import main.symbolTable.exceptions.*;
 import main.symbolTable.items.FunctionSymbolTableItem;
 import main.symbolTable.items.StructSymbolTableItem;
 import main.visitor.Visitor;
-import main.visitor.type.ExpressionTypeChecker;
+import main.visitor.optimizer.CommonAccesses;
+import main.visitor.optimizer.DeadCodeEliminator;
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
 
-public class  CodeGenerator extends Visitor<String> {
-    ExpressionTypeChecker expressionTypeChecker = new ExpressionTypeChecker();
-    private String outputPath;
-    private FileWriter currentFile;
+public class  CodeGenerator extends Visitor<Void> {
+    private static final int MAX_FIXED_ARITY = 3;
+    private static final String[] RUNTIME_CLASSES = {"List", "IntList", "BoolList", "Fptr", "FptrLinker"};
+
+    protected String outputPath;
+    protected String currentFileName;
+    private StringBuilder currentFile;
+    protected boolean inMemory = false;
+    private boolean useIr = false;
+    private int numberOfIrBodies = 0;
+    private int numberOfRewrites = 0;
+    private boolean compileMainBody = true;
+    private final Map<String, String> jasminFiles = new LinkedHashMap<>();
+    protected InstructionList code;
 
     ArrayList<VariableDeclaration> allvars = new ArrayList<>();
     private ArrayList<String> scopeVars = new ArrayList<>();
     boolean structScope = false;
 
-    private FunctionDeclaration curFunc;
+    private SlotAllocator slots;
+    private final ArrayList<Integer> temps = new ArrayList<>();
+    private final Set<Integer> busyTemps = new HashSet<>();
+    private final ArrayList<Map<String, Integer>> savedAccesses = new ArrayList<>();
 
-    private int numofUsedTmp = 0;
     private int numofUsedLabel = 0;
-    private String stackLimit = "128";
-    private String localLimit = "128";
+    private String methodHeader;
     private StructDeclaration currStruct;
     private ArrayList<String> scopeallvars = new ArrayList<>();
+    private CommonAccesses commonAccesses = new CommonAccesses();
+    private final Map<String, Integer> cachedAccesses = new HashMap<>();
 
 
     private void copyFile(String toBeCopied, String toBePasted) {
@@ -54,11 +70,49 @@ public class  CodeGenerator extends Visitor<String> {
         }
     }
 
+    public void setInMemory(boolean inMemory) {
+        this.inMemory = inMemory;
+    }
+
+    public void setUseIr(boolean useIr) {
+        this.useIr = useIr;
+    }
+
+    //without its body Main is only a receiver for the compiled functions, as the tiered runtime needs
+    public void setCompileMainBody(boolean compileMainBody) {
+        this.compileMainBody = compileMainBody;
+    }
+
+    public int getNumberOfIrBodies() {
+        return numberOfIrBodies;
+    }
+
+    public int getNumberOfRewrites() {
+        return numberOfRewrites;
+    }
+
+    public Map<String, String> getJasminFiles() {
+        return jasminFiles;
+    }
+
+    //jasmin cannot assemble invokedynamic, so only backends writing class files directly use it
+    protected boolean supportsInvokeDynamic() {
+        return false;
+    }
+
     private void prepareOutputFolder() {
         this.outputPath = "output/";
         String jasminPath = "utilities/jarFiles/jasmin.jar";
-        String listClassPath = "utilities/codeGenerationUtilityClasses/List.j";
-        String fptrClassPath = "utilities/codeGenerationUtilityClasses/Fptr.j";
+        String runtimeClassesPath = "utilities/codeGenerationUtilityClasses/";
+        if (inMemory) {
+            try {
+                for (String runtimeClass : RUNTIME_CLASSES)
+                    jasminFiles.put(runtimeClass, new String(Files.readAllBytes(Paths.get(runtimeClassesPath + runtimeClass + ".j"))));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
         try{
             File directory = new File(this.outputPath);
             File[] files = directory.listFiles();
@@ -71,68 +125,164 @@ public class  CodeGenerator extends Visitor<String> {
 
         }
         copyFile(jasminPath, this.outputPath + "jasmin.jar");
-        copyFile(listClassPath, this.outputPath + "List.j");
-        copyFile(fptrClassPath, this.outputPath + "Fptr.j");
+        for (String runtimeClass : RUNTIME_CLASSES)
+            copyFile(runtimeClassesPath + runtimeClass + ".j", this.outputPath + runtimeClass + ".j");
     }
 
-    private void createFile(String name) {
-        try {
-            String path = this.outputPath + name + ".j";
-            File file = new File(path);
-            file.createNewFile();
-            this.currentFile = new FileWriter(path);
-        } catch (IOException e) {//never reached
-        }
+    protected void createFile(String name) {
+        closeFile();
+        this.currentFileName = name;
+        this.currentFile = new StringBuilder();
     }
 
-    private void addCommand(String command) {
-        try {
-            command = String.join("\n\t\t", command.split("\n"));
-            if(command.startsWith("Label_"))
-                this.currentFile.write("\t" + command + "\n");
-            else if(command.startsWith("."))
-                this.currentFile.write(command + "\n");
-            else
-                this.currentFile.write("\t\t" + command + "\n");
-            this.currentFile.flush();
-        } catch (IOException e) {//unreachable
+    protected void closeFile() {
+        if (this.currentFile == null)
+            return;
+        if (inMemory)
+            jasminFiles.put(currentFileName, currentFile.toString());
+        else {
+            try (Writer writer = new BufferedWriter(new FileWriter(this.outputPath + currentFileName + ".j"))) {
+                writer.append(currentFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        this.currentFile = null;
+    }
 
+    protected void addCommand(String command) {
+        int lineStart = 0;
+        while (lineStart < command.length()) {
+            int lineEnd = command.indexOf('\n', lineStart);
+            if (lineEnd == -1)
+                lineEnd = command.length();
+            if(command.startsWith("Label_", lineStart))
+                this.currentFile.append('\t');
+            else if(!command.startsWith(".", lineStart))
+                this.currentFile.append("\t\t");
+            this.currentFile.append(command, lineStart, lineEnd).append('\n');
+            lineStart = lineEnd + 1;
         }
     }
 
-    private void addStaticMainMethod() {
-        addCommand(".method public static main([Ljava/lang/String;)V");
-        addCommand(".limit stack 128");
-        addCommand(".limit locals 128");
-        addCommand("new Main");
-        addCommand("invokespecial Main/<init>()V");
-        addCommand("return");
+    protected void addInstructions(InstructionList instructions) {
+        for (Instruction instruction : instructions)
+            addCommand(instruction.toString());
+    }
+
+    private void beginMethod(String header) {
+        addCommand(header);
+        methodHeader = header;
+        code = new InstructionList();
+        forgetCachedAccesses();
+        temps.clear();
+        busyTemps.clear();
+        savedAccesses.clear();
+    }
+
+    //a temp is free again once neither the access cache nor a snapshot of it waiting for a join refers to it
+    private boolean isTempInUse(int slot) {
+        if (busyTemps.contains(slot) || cachedAccesses.containsValue(slot))
+            return true;
+        for (Map<String, Integer> saved : savedAccesses)
+            if (saved.containsValue(slot))
+                return true;
+        return false;
+    }
+
+    private int newTemp() {
+        for (int slot : temps)
+            if (!isTempInUse(slot))
+                return slot;
+        int slot = slots.getNumberOfSlots() + temps.size();
+        temps.add(slot);
+        return slot;
+    }
+
+    //bodies the IR can express go through SSA and come back with their own returns
+    private void emitIr(ControlFlowGraph graph) {
+        SsaBuilder.build(graph);
+        SsaOptimizer.optimize(graph);
+        code.addAll(IrLowering.lower(graph));
+        numberOfIrBodies++;
+    }
+
+    private void findCommonAccesses(Statement body) {
+        commonAccesses = new CommonAccesses();
+        body.accept(commonAccesses);
+    }
+
+    //any write may change what a cached access chain reads, so the whole cache goes
+    private void forgetCachedAccesses() {
+        cachedAccesses.clear();
+    }
+
+    private Map<String, Integer> saveCachedAccesses() {
+        Map<String, Integer> saved = new HashMap<>(cachedAccesses);
+        savedAccesses.add(saved);
+        return saved;
+    }
+
+    private void restoreCachedAccesses(Map<String, Integer> saved) {
+        cachedAccesses.clear();
+        cachedAccesses.putAll(saved);
+        savedAccesses.remove(saved);
+    }
+
+    //where two paths join only what both of them cached is still valid
+    private void joinCachedAccesses(Map<String, Integer> saved) {
+        cachedAccesses.entrySet().retainAll(saved.entrySet());
+        savedAccesses.remove(saved);
+    }
+
+    private boolean loadCachedAccess(String key, Type type) {
+        Integer slot = cachedAccesses.get(key);
+        if (slot == null)
+            return false;
+        load(type, slot);
+        return true;
+    }
+
+    private void cacheAccess(String key, Type type) {
+        if (!commonAccesses.isCommon(key))
+            return;
+        int slot = newTemp();
+        emit(Opcode.DUP);
+        store(type, slot);
+        cachedAccesses.put(key, slot);
+    }
+
+    private void endMethod() {
+        numberOfRewrites += PeepholeOptimizer.optimize(code);
+        addCommand(".limit stack " + FrameSize.maxStack(code));
+        addCommand(".limit locals " + FrameSize.maxLocals(code, FrameSize.argumentSlots(methodHeader)));
+        addInstructions(code);
         addCommand(".end method");
+        code = null;
     }
 
-    private int slotOf(String identifier) {
-        //todo
-        int slotNum = 0;
-        if (curFunc != null){
-            for (VariableDeclaration arg: curFunc.getArgs()){
-                if (arg.getVarName().getName().equals(identifier))
-                    return slotNum + 1;
-                slotNum += 1;
-            }
-        }
-        for(VariableDeclaration var : allvars)
-        {
-            if(var.getVarName().getName().equals(identifier))
-                return slotNum + 1;
-            slotNum += 1;
-        }
+    private void emit(Opcode opcode) {
+        code.add(opcode);
+    }
 
-        if (identifier.equals("")) {
-            int temp =numofUsedTmp;
-            numofUsedTmp += 1;
-            return slotNum + temp + 1;
-        }
-        return 0;
+    private void emit(Opcode opcode, String operand) {
+        code.add(opcode, operand);
+    }
+
+    private void emit(Opcode opcode, int operand) {
+        code.add(opcode, operand);
+    }
+
+    private void emitLabel(String label) {
+        code.addLabel(label);
+    }
+
+    private void addStaticMainMethod() {
+        beginMethod(".method public static main([Ljava/lang/String;)V");
+        emit(Opcode.NEW, "Main");
+        emit(Opcode.INVOKESPECIAL, "Main/<init>()V");
+        emit(Opcode.RETURN);
+        endMethod();
     }
 
     private  String castType(Type t){
@@ -141,7 +291,7 @@ public class  CodeGenerator extends Visitor<String> {
         if (t instanceof BoolType)
             return "java/lang/Boolean";
         if (t instanceof ListType)
-            return "List";
+            return listClass((ListType) t);
         if (t instanceof FptrType)
             return "Fptr";
         if (t instanceof StructType)
@@ -156,7 +306,7 @@ public class  CodeGenerator extends Visitor<String> {
         if (t instanceof BoolType)
             return "java/lang/Boolean";
         if (t instanceof ListType)
-            return "List";
+            return listClass((ListType) t);
         if (t instanceof FptrType)
             return "Fptr";
         if (t instanceof StructType)
@@ -165,57 +315,118 @@ public class  CodeGenerator extends Visitor<String> {
             return "V";
         return null;
     }
-    private String convertNonPremitive(Type type) {
-        String commands = "";
+
+    private String methodDescriptor(ArrayList<Type> argTypes, Type returnType) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Type argType : argTypes)
+            descriptor.append("L").append(castType(argType)).append(";");
+        if (returnType instanceof VoidType)
+            descriptor.append(")V");
+        else
+            descriptor.append(")L").append(castType(returnType)).append(";");
+        return descriptor.toString();
+    }
+
+    private FunctionSymbolTableItem knownFunction(Expression instance) {
+        if (!(instance instanceof Identifier))
+            return null;
+        try {
+            String functionKey = FunctionSymbolTableItem.START_KEY + ((Identifier) instance).getName();
+            return (FunctionSymbolTableItem) SymbolTable.root().getItem(functionKey);
+        } catch (ItemNotFoundException e) {
+            return null;
+        }
+    }
+
+    private void emitBoxedArgument(Expression arg) {
+        Type argType = arg.getType();
+        if(argType instanceof ListType)
+            emitListCopy((ListType) argType, arg);
+        else
+            arg.accept(this);
+        convertNonPremitive(argType);
+    }
+
+    private String listClass(ListType listType) {
+        if (listType.getType() instanceof IntType)
+            return "IntList";
+        if (listType.getType() instanceof BoolType)
+            return "BoolList";
+        return "List";
+    }
+
+    private String elementSuffix(ListType listType) {
+        if (listType.getType() instanceof IntType)
+            return "Int";
+        if (listType.getType() instanceof BoolType)
+            return "Bool";
+        return "Element";
+    }
+
+    private String elementDescriptor(ListType listType) {
+        if (listType.getType() instanceof IntType)
+            return "I";
+        if (listType.getType() instanceof BoolType)
+            return "Z";
+        return "Ljava/lang/Object;";
+    }
+
+    private void emitListCopy(ListType listType, Expression list) {
+        String listClass = listClass(listType);
+        emit(Opcode.NEW, listClass);
+        emit(Opcode.DUP);
+        list.accept(this);
+        emit(Opcode.INVOKESPECIAL, listClass + "/<init>(L" + listClass + ";)V");
+    }
+
+    private void emitListGet(ListType listType) {
+        emit(Opcode.INVOKEVIRTUAL, listClass(listType) + "/get" + elementSuffix(listType) + "(I)" + elementDescriptor(listType));
+        if (!isPremitive(listType.getType()))
+            emit(Opcode.CHECKCAST, castType(listType.getType()));
+    }
+
+    private void emitListSet(ListType listType) {
+        emit(Opcode.INVOKEVIRTUAL, listClass(listType) + "/set" + elementSuffix(listType) + "(I" + elementDescriptor(listType) + ")V");
+    }
+
+    private boolean isPremitive(Type type) {
+        return type instanceof IntType || type instanceof BoolType;
+    }
+
+    private void store(Type type, int slot) {
+        emit(isPremitive(type) ? Opcode.ISTORE : Opcode.ASTORE, slot);
+    }
+
+    private void load(Type type, int slot) {
+        emit(isPremitive(type) ? Opcode.ILOAD : Opcode.ALOAD, slot);
+    }
+
+    private void convertNonPremitive(Type type) {
         if(type instanceof IntType)
-            commands += "invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;\n";
+            emit(Opcode.INVOKESTATIC, "java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
         if(type instanceof BoolType)
-            commands += "invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;\n";
-        return commands;
+            emit(Opcode.INVOKESTATIC, "java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;");
     }
 
-    private String convertPremitive(Type type){
-        String commands = "";
+    private void convertPremitive(Type type){
         if(type instanceof IntType)
-            commands += "invokevirtual java/lang/Integer/intValue()I\n";
+            emit(Opcode.INVOKEVIRTUAL, "java/lang/Integer/intValue()I");
         if(type instanceof BoolType)
-            commands += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-        return commands;
+            emit(Opcode.INVOKEVIRTUAL, "java/lang/Boolean/booleanValue()Z");
     }
 
-
-    private void getStructVars(StructDeclaration structDeclaration){
-        String structName = structDeclaration.getStructName().getName();
-        for (VariableDeclaration var : allvars) {
-            String varName = var.getVarName().getName();
-            Type varType = var.getVarType();
-            addCommand("aload 0");
-            if (varType instanceof FptrType) {
-                addCommand("aconst_null");
-                addCommand("putfield " + structName + "/" + varName + " L" + castType(varType) + ";\n");
-            }
-            else if (varType instanceof StructType) {
-                String VarStructName = ((StructType)varType).getStructName().getName();
-                addCommand("new " + VarStructName);
-                addCommand("dup");
-                addCommand("invokespecial " + VarStructName + "/<init>()V");
-                addCommand("putfield " + structName + "/" + varName + " L" + castType(varType) + ";\n");
-            }
-            else if (varType instanceof IntType || varType instanceof BoolType) {
-                addCommand("ldc 0");
-                addCommand(convertNonPremitive(varType));
-                addCommand("putfield " + structName + "/" + varName + " L" + castType(varType) + ";\n");
-            }
-            else {
-                addCommand("new List");
-                addCommand("dup");
-                addCommand("new java/util/ArrayList");
-                addCommand("dup");
-                addCommand("invokespecial java/util/ArrayList/<init>()V");
-                addCommand("invokespecial List/<init>(Ljava/util/ArrayList;)V");
-                addCommand("putfield " + structName + "/" + varName + " L" + castType(varType) + ";\n");
-            }
+    private void newEmptyList(ListType listType) {
+        String listClass = listClass(listType);
+        emit(Opcode.NEW, listClass);
+        emit(Opcode.DUP);
+        if (listClass.equals("List")) {
+            emit(Opcode.NEW, "java/util/ArrayList");
+            emit(Opcode.DUP);
+            emit(Opcode.INVOKESPECIAL, "java/util/ArrayList/<init>()V");
+            emit(Opcode.INVOKESPECIAL, "List/<init>(Ljava/util/ArrayList;)V");
         }
+        else
+            emit(Opcode.INVOKESPECIAL, listClass + "/<init>()V");
     }
 
     private String getFreshLabel(){
@@ -226,7 +437,7 @@ public class  CodeGenerator extends Visitor<String> {
     }
 
     @Override
-    public String visit(Program program) {
+    public Void visit(Program program) {
         prepareOutputFolder();
 
         for(StructDeclaration structDeclaration : program.getStructs()){
@@ -240,23 +451,21 @@ public class  CodeGenerator extends Visitor<String> {
 
         program.getMain().accept(this);
         allvars.clear();
-        numofUsedTmp = 0;
 
         for (FunctionDeclaration functionDeclaration: program.getFunctions()){
-            curFunc = functionDeclaration;
             functionDeclaration.accept(this);
             allvars.clear();
-            numofUsedTmp = 0;
         }
+        closeFile();
         return null;
     }
 
     @Override
-    public String visit(StructDeclaration structDeclaration) {
+    public Void visit(StructDeclaration structDeclaration) {
         try{
             currStruct = structDeclaration;
             String structKey = StructSymbolTableItem.START_KEY + structDeclaration.getStructName().getName();
-            StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root.getItem(structKey);
+            StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root().getItem(structKey);
             SymbolTable.push(structSymbolTableItem.getStructSymbolTable());
         }catch (ItemNotFoundException e){//unreachable
         }
@@ -268,56 +477,46 @@ public class  CodeGenerator extends Visitor<String> {
 
         structDeclaration.getBody().accept(this);
         scopeVars.add(structDeclaration.getStructName().getName());
-        addCommand(".method public <init>()V");
-        addCommand(".limit stack 128");
-        addCommand(".limit locals 128");
-        addCommand("aload 0");
-        addCommand("invokespecial java/lang/Object/<init>()V");
+        beginMethod(".method public <init>()V");
+        emit(Opcode.ALOAD, 0);
+        emit(Opcode.INVOKESPECIAL, "java/lang/Object/<init>()V");
 
         for (VariableDeclaration var : allvars) {
             String varName = var.getVarName().getName();
             Type varType = var.getVarType();
-            addCommand("aload 0");
+            emit(Opcode.ALOAD, 0);
             if (varType instanceof FptrType) {
-                addCommand("aconst_null");
-                addCommand("putfield " + structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";\n");
+                emit(Opcode.ACONST_NULL);
             }
             else if (varType instanceof StructType) {
                 String allvarstructName = ((StructType)varType).getStructName().getName();
-                addCommand("new " + allvarstructName);
-                addCommand("dup");
-                addCommand("invokespecial " + allvarstructName + "/<init>()V");
-                addCommand("putfield " + structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";\n");
+                emit(Opcode.NEW, allvarstructName);
+                emit(Opcode.DUP);
+                emit(Opcode.INVOKESPECIAL, allvarstructName + "/<init>()V");
             }
             else if (varType instanceof IntType || varType instanceof BoolType) {
-                addCommand("ldc 0");
-                addCommand(convertNonPremitive(varType));
-                addCommand("putfield " + structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";\n");
+                emit(Opcode.LDC, 0);
+                convertNonPremitive(varType);
             }
             else {
-                addCommand("new List");
-                addCommand("dup");
-                addCommand("new java/util/ArrayList");
-                addCommand("dup");
-                addCommand("invokespecial java/util/ArrayList/<init>()V");
-                addCommand("invokespecial List/<init>(Ljava/util/ArrayList;)V");
-                addCommand("putfield " + structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";\n");
+                newEmptyList((ListType) varType);
             }
+            emit(Opcode.PUTFIELD, structDeclaration.getStructName().getName() + "/" + varName + " L" + castType(varType) + ";");
         }
-        addCommand("return");
-        addCommand(".end method");
+        emit(Opcode.RETURN);
+        endMethod();
         return null;
     }
 
     @Override
-    public String visit(FunctionDeclaration functionDeclaration) {
+    public Void visit(FunctionDeclaration functionDeclaration) {
         ArrayList<Type> argT = new ArrayList<>();
         Type returnType = null;
 
         try{
             String functionKey = FunctionSymbolTableItem.START_KEY + functionDeclaration.getFunctionName().getName();
 //
-            FunctionSymbolTableItem functionSymbolTableItem = (FunctionSymbolTableItem) SymbolTable.root.getItem(functionKey);
+            FunctionSymbolTableItem functionSymbolTableItem = (FunctionSymbolTableItem) SymbolTable.root().getItem(functionKey);
             SymbolTable.push(functionSymbolTableItem.getFunctionSymbolTable());
             argT = functionSymbolTableItem.getArgTypes();
             returnType = functionSymbolTableItem.getReturnType();
@@ -325,129 +524,97 @@ public class  CodeGenerator extends Visitor<String> {
         catch(ItemNotFoundException e){//
         }
         scopeVars.add(functionDeclaration.getFunctionName().getName());
-        String header = "";
-        header += ".method public " + functionDeclaration.getFunctionName().getName() + "(";
-        for (Type vartype: argT)
-            header += "L" + castType(vartype) + ";";
-
-        if (returnType instanceof VoidType)
-            header += ")V";
-        else
-            header += ")L" + castType(returnType) + ";";
-
-        addCommand(header);
-        addCommand(".limit stack 128");
-        addCommand(".limit locals 128");
+        slots = new SlotAllocator(functionDeclaration.getArgs(), functionDeclaration.getBody());
+        beginMethod(".method public " + functionDeclaration.getFunctionName().getName() + methodDescriptor(argT, returnType));
+        for (VariableDeclaration arg : functionDeclaration.getArgs()) {
+            if (isPremitive(arg.getVarType())) {
+                int slot = slots.slotOf(arg);
+                emit(Opcode.ALOAD, slot);
+                convertPremitive(arg.getVarType());
+                emit(Opcode.ISTORE, slot);
+            }
+        }
 
-        functionDeclaration.getBody().accept(this);
-        if (returnType instanceof VoidType)
-            addCommand("return");
-        addCommand(".end method");
+        ControlFlowGraph graph = useIr ? IrBuilder.build(functionDeclaration) : null;
+        if (graph != null)
+            emitIr(graph);
+        else {
+            findCommonAccesses(functionDeclaration.getBody());
+            functionDeclaration.getBody().accept(this);
+            if (returnType instanceof VoidType)
+                emit(Opcode.RETURN);
+        }
+        endMethod();
         scopeVars.clear();
         SymbolTable.pop();
         return null;
     }
-    public void addDefaultConstructor() {
-        addCommand(".method public <init>()V");
-        addCommand(".limit stack " + stackLimit);
-        addCommand(".limit locals " + localLimit);
-        addCommand("aload_0");
-        addCommand("invokespecial java/lang/Object/<init>()V");
-        String structName = currStruct.getStructName().getName();
 
-        for(VariableDeclaration var : allvars){
-            String varName = var.getVarName().getName();
-            Type varType = var.getVarType();
-            if(varType instanceof StructType || varType instanceof FptrType){
-                addCommand("aload 0");
-                addCommand("aconst_null");
-                addCommand("putfield " + structName + "/" + varName + " L" + makeTypeSignature(varType) + ";\n");
-            }
-            else if(varType instanceof IntType || varType instanceof BoolType){
-                addCommand("aload 0");
-                addCommand("ldc 0");
-                if(varType instanceof IntType)
-                    addCommand("invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
-                if(varType instanceof BoolType)
-                    addCommand("invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;");
-                addCommand("putfield " + structName + "/" + varName + " L" + makeTypeSignature(varType) + ";\n");
-            }
-        }
-
-        addCommand("return");
-        addCommand(".end method");
-    }
     @Override
-    public String visit(MainDeclaration mainDeclaration) {
+    public Void visit(MainDeclaration mainDeclaration) {
         FunctionSymbolTableItem mainFunc = null;
         try {
             String functionKey = FunctionSymbolTableItem.START_KEY + "main";
-            mainFunc = (FunctionSymbolTableItem) SymbolTable.root.getItem(functionKey);
+            mainFunc = (FunctionSymbolTableItem) SymbolTable.root().getItem(functionKey);
             SymbolTable.push(mainFunc.getFunctionSymbolTable());
         } catch (ItemNotFoundException e) {//unreachable
         }
-        addCommand(".class Main");
+        addCommand(".class public Main");
         addCommand(".super java/lang/Object");
         addStaticMainMethod();
-        addCommand(".method public <init>()V");
-        addCommand(".limit stack 128");
-        addCommand(".limit locals 128");
-        addCommand("aload 0");
-        addCommand("invokespecial java/lang/Object/<init>()V");
-
-        mainDeclaration.getBody().accept(this);
-//        addStaticMainMethod();
-//        addDefaultConstructor();
-
-        addCommand("return");
-        addCommand(".end method");
+        slots = new SlotAllocator(new ArrayList<>(), mainDeclaration.getBody());
+        beginMethod(".method public <init>()V");
+        emit(Opcode.ALOAD, 0);
+        emit(Opcode.INVOKESPECIAL, "java/lang/Object/<init>()V");
+
+        ControlFlowGraph graph = useIr && compileMainBody ? IrBuilder.build(mainDeclaration) : null;
+        if (!compileMainBody)
+            emit(Opcode.RETURN);
+        else if (graph != null)
+            emitIr(graph);
+        else {
+            findCommonAccesses(mainDeclaration.getBody());
+            mainDeclaration.getBody().accept(this);
+            emit(Opcode.RETURN);
+        }
+        endMethod();
         return null;
     }
 
     @Override
-    public String visit(VariableDeclaration variableDeclaration) {
+    public Void visit(VariableDeclaration variableDeclaration) {
         scopeVars.add(variableDeclaration.getVarName().getName());
-        allvars.add(variableDeclaration);
-        allvars.add(variableDeclaration);
         Type type = variableDeclaration.getVarType();
         String varName = variableDeclaration.getVarName().getName();
-        int slot= slotOf(varName);
 
         if(structScope){
+            allvars.add(variableDeclaration);
             addCommand(".field " + varName + " L" + castType(type) + ";");
+            return null;
         }
-        else {
-            if (type instanceof FptrType){
-                addCommand("aconst_null");
-                addCommand("astore " + slot);
-            }
-            else if(type instanceof StructType){
-                String structName = ((StructType)type).getStructName().getName();
-                addCommand("new " + structName);
-                addCommand("dup");
-                addCommand("invokespecial " + structName  + "/<init>()V");
-                addCommand("astore " + slot);
-            }
-            else if (type instanceof IntType || type instanceof BoolType){
-                addCommand("ldc 0");
-                addCommand(convertNonPremitive(type));
-                addCommand("astore " + slot);
-            }
-            else{
-                addCommand("new List");
-                addCommand("dup");
-                addCommand("new java/util/ArrayList");
-                addCommand("dup");
-                addCommand("invokespecial java/util/ArrayList/<init>()V");
-                addCommand("invokespecial List/<init>(Ljava/util/ArrayList;)V");
-                addCommand("astore " + slot);
-            }
+        int slot = slots.slotOf(variableDeclaration);
+        if (type instanceof FptrType){
+            emit(Opcode.ACONST_NULL);
+        }
+        else if(type instanceof StructType){
+            String structName = ((StructType)type).getStructName().getName();
+            emit(Opcode.NEW, structName);
+            emit(Opcode.DUP);
+            emit(Opcode.INVOKESPECIAL, structName  + "/<init>()V");
+        }
+        else if (type instanceof IntType || type instanceof BoolType){
+            emit(Opcode.LDC, 0);
         }
+        else{
+            newEmptyList((ListType) type);
+        }
+        store(type, slot);
+        forgetCachedAccesses();
 
         if(variableDeclaration.getDefaultValue() != null){
-            addCommand(variableDeclaration.getDefaultValue().accept(this));
-            addCommand(convertNonPremitive(type));
-            addCommand("astore " + slot);
+            variableDeclaration.getDefaultValue().accept(this);
+            store(type, slot);
+            forgetCachedAccesses();
         }
         return null;
     }
@@ -455,438 +622,447 @@ public class  CodeGenerator extends Visitor<String> {
 
 
     @Override
-    public String visit(SetGetVarDeclaration setGetVarDeclaration) {
+    public Void visit(SetGetVarDeclaration setGetVarDeclaration) {
         return null;
     }
 
 
     @Override
-    public String visit(AssignmentStmt assignmentStmt) {
+    public Void visit(AssignmentStmt assignmentStmt) {
         BinaryExpression assignExpr = new BinaryExpression(
                 assignmentStmt.getLValue(),
                 assignmentStmt.getRValue(),
                 BinaryOperator.assign);
-        addCommand(assignExpr.accept(this));
-        addCommand("pop");
+        assignExpr.accept(this);
+        emit(Opcode.POP);
         return null;
     }
 
     @Override
-    public String visit(BlockStmt blockStmt) {
+    public Void visit(BlockStmt blockStmt) {
         for (Statement statement: blockStmt.getStatements())
             statement.accept(this);
         return null;
     }
 
     @Override
-    public String visit(ConditionalStmt conditionalStmt) {
+    public Void visit(ConditionalStmt conditionalStmt) {
         String labelFalse = getFreshLabel();
         String labelAfter = getFreshLabel();
-        addCommand(conditionalStmt.getCondition().accept(this));
-        addCommand("ifeq " + labelFalse);
+        emitBranch(conditionalStmt.getCondition(), false, labelFalse);
+        Map<String, Integer> afterCondition = saveCachedAccesses();
         conditionalStmt.getThenBody().accept(this);
-        addCommand("goto " + labelAfter);
-        addCommand(labelFalse + ":");
+        Map<String, Integer> afterThen = saveCachedAccesses();
+        if (!DeadCodeEliminator.alwaysReturns(conditionalStmt.getThenBody()))
+            emit(Opcode.GOTO, labelAfter);
+        emitLabel(labelFalse);
+        restoreCachedAccesses(afterCondition);
         if (conditionalStmt.getElseBody() != null)
             conditionalStmt.getElseBody().accept(this);
-        addCommand(labelAfter + ":");
+        emitLabel(labelAfter);
+        joinCachedAccesses(afterThen);
         return null;
     }
 
     @Override
-    public String visit(FunctionCallStmt functionCallStmt) {
-        expressionTypeChecker.setInFunctionCallStmt(true);
-        addCommand(functionCallStmt.getFunctionCall().accept(this));
-        addCommand("pop");
-        expressionTypeChecker.setInFunctionCallStmt(false);
+    public Void visit(FunctionCallStmt functionCallStmt) {
+        FunctionCall functionCall = functionCallStmt.getFunctionCall();
+        functionCall.accept(this);
+        FunctionSymbolTableItem function = knownFunction(functionCall.getInstance());
+        if (function == null || !(function.getReturnType() instanceof VoidType))
+            emit(Opcode.POP);
         return null;
     }
 
     @Override
-    public String visit(DisplayStmt displayStmt) {
-        addCommand("getstatic java/lang/System/out Ljava/io/PrintStream;");
-        Type argType = displayStmt.getArg().accept(expressionTypeChecker);
-        String commandsOfArg = displayStmt.getArg().accept(this);
+    public Void visit(DisplayStmt displayStmt) {
+        emit(Opcode.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
+        Type argType = displayStmt.getArg().getType();
+        displayStmt.getArg().accept(this);
 
-        addCommand(commandsOfArg);
         if (argType instanceof IntType)
-            addCommand("invokevirtual java/io/PrintStream/println(I)V");
+            emit(Opcode.INVOKEVIRTUAL, "java/io/PrintStream/println(I)V");
         if (argType instanceof BoolType)
-            addCommand("invokevirtual java/io/PrintStream/println(Z)V");
+            emit(Opcode.INVOKEVIRTUAL, "java/io/PrintStream/println(Z)V");
 
         return null;
     }
 
     @Override
-    public String visit(ReturnStmt returnStmt) {
+    public Void visit(ReturnStmt returnStmt) {
         Expression rexpr = returnStmt.getReturnedExpr();
         if(rexpr == null){
-            addCommand("return");
+            emit(Opcode.RETURN);
             return null;
         }
-        Type type = returnStmt.getReturnedExpr().accept(expressionTypeChecker);
+        Type type = returnStmt.getReturnedExpr().getType();
 
         if (type instanceof VoidType)
-            addCommand("return");
+            emit(Opcode.RETURN);
         else{
-            addCommand(returnStmt.getReturnedExpr().accept(this));
-//            addCommand(convertNonPremitive(type));
-            if (type instanceof IntType)
-                addCommand("invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
-            if (type instanceof BoolType)
-                addCommand("invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;");
-            addCommand("areturn");
+            returnStmt.getReturnedExpr().accept(this);
+            convertNonPremitive(type);
+            emit(Opcode.ARETURN);
         }
         return null;
     }
 
     @Override
-    public String visit(LoopStmt loopStmt) {
+    public Void visit(LoopStmt loopStmt) {
         String labelAfter = getFreshLabel();
         String labelFalse = getFreshLabel();
 
         if (!loopStmt.getIsDoWhile()){
-            addCommand(labelAfter + ":");
-            addCommand(loopStmt.getCondition().accept(this));
-            addCommand("ifeq " + labelFalse);
+            emitLabel(labelAfter);
+            forgetCachedAccesses();
+            emitBranch(loopStmt.getCondition(), false, labelFalse);
+            Map<String, Integer> afterCondition = saveCachedAccesses();
             loopStmt.getBody().accept(this);
-            addCommand("goto " + labelAfter);
-            addCommand(labelFalse + ":");
+            emit(Opcode.GOTO, labelAfter);
+            emitLabel(labelFalse);
+            restoreCachedAccesses(afterCondition);
         }
         else{
-            addCommand(labelAfter + ":");
+            emitLabel(labelAfter);
+            forgetCachedAccesses();
             loopStmt.getBody().accept(this);
-            addCommand(loopStmt.getCondition().accept(this));
-            addCommand("ifeq " + labelFalse);
-            addCommand("goto " + labelAfter);
-            addCommand(labelFalse + ":");
+            emitBranch(loopStmt.getCondition(), true, labelAfter);
         }
         return null;
     }
 
     @Override
-    public String visit(VarDecStmt varDecStmt) {
+    public Void visit(VarDecStmt varDecStmt) {
         for (VariableDeclaration variableDeclaration: varDecStmt.getVars())
             variableDeclaration.accept(this);
         return null;
     }
 
     @Override
-    public String visit(ListAppendStmt listAppendStmt) {
-        expressionTypeChecker.setInFunctionCallStmt(true);
-        addCommand(listAppendStmt.getListAppendExpr().accept(this));
-        expressionTypeChecker.setInFunctionCallStmt(false);
+    public Void visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
         return null;
     }
 
     @Override
-    public String visit(ListSizeStmt listSizeStmt) {
-        addCommand(listSizeStmt.getListSizeExpr().accept(this));
-        addCommand("pop");
+    public Void visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        emit(Opcode.POP);
         return null;
     }
 
+    //jumps to target when condition evaluates to whenTrue and falls through otherwise,
+    //so conditions are tested where they are computed instead of being pushed as 0 or 1 first
+    private void emitBranch(Expression condition, boolean whenTrue, String target) {
+        if (condition instanceof ExprInPar) {
+            emitBranch(((ExprInPar) condition).getInputs().get(0), whenTrue, target);
+            return;
+        }
+        if (condition instanceof BoolValue) {
+            if (((BoolValue) condition).getConstant() == whenTrue)
+                emit(Opcode.GOTO, target);
+            return;
+        }
+        if (condition instanceof UnaryExpression && ((UnaryExpression) condition).getOperator() == UnaryOperator.not) {
+            emitBranch(((UnaryExpression) condition).getOperand(), !whenTrue, target);
+            return;
+        }
+        if (condition instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) condition;
+            BinaryOperator operator = binaryExpression.getBinaryOperator();
+            Expression firstOperand = binaryExpression.getFirstOperand();
+            Expression secondOperand = binaryExpression.getSecondOperand();
+            if (operator == BinaryOperator.and || operator == BinaryOperator.or) {
+                //the first operand alone decides the result when it is false for and, true for or
+                boolean shortCircuit = operator == BinaryOperator.or;
+                String labelDecided = shortCircuit == whenTrue ? target : getFreshLabel();
+                emitBranch(firstOperand, shortCircuit, labelDecided);
+                Map<String, Integer> afterFirst = saveCachedAccesses();
+                emitBranch(secondOperand, whenTrue, target);
+                joinCachedAccesses(afterFirst);
+                if (!labelDecided.equals(target))
+                    emitLabel(labelDecided);
+                return;
+            }
+            if (operator == BinaryOperator.lt || operator == BinaryOperator.gt || operator == BinaryOperator.eq) {
+                firstOperand.accept(this);
+                secondOperand.accept(this);
+                Opcode jump;
+                if (operator == BinaryOperator.lt)
+                    jump = whenTrue ? Opcode.IF_ICMPLT : Opcode.IF_ICMPGE;
+                else if (operator == BinaryOperator.gt)
+                    jump = whenTrue ? Opcode.IF_ICMPGT : Opcode.IF_ICMPLE;
+                else if (!isPremitive(firstOperand.getType()))
+                    jump = whenTrue ? Opcode.IF_ACMPEQ : Opcode.IF_ACMPNE;
+                else
+                    jump = whenTrue ? Opcode.IF_ICMPEQ : Opcode.IF_ICMPNE;
+                emit(jump, target);
+                return;
+            }
+        }
+        condition.accept(this);
+        emit(whenTrue ? Opcode.IFNE : Opcode.IFEQ, target);
+    }
+
+    //a condition is only pushed as 0 or 1 where its value is stored or displayed
+    private void emitBooleanValue(Expression condition) {
+        String labelFalse = getFreshLabel();
+        String labelAfter = getFreshLabel();
+        emitBranch(condition, false, labelFalse);
+        emit(Opcode.LDC, 1);
+        emit(Opcode.GOTO, labelAfter);
+        emitLabel(labelFalse);
+        emit(Opcode.LDC, 0);
+        emitLabel(labelAfter);
+    }
+
+    private void emitAssignedValue(Type firstType, Type secondType, Expression secondOperand) {
+        if(firstType instanceof ListType)
+            emitListCopy((ListType) firstType, secondOperand);
+        else
+            secondOperand.accept(this);
+        convertNonPremitive(secondType);
+    }
+
     @Override
-    public String visit(BinaryExpression binaryExpression) {
+    public Void visit(BinaryExpression binaryExpression) {
         BinaryOperator operator = binaryExpression.getBinaryOperator();
-        Type operandType = binaryExpression.getFirstOperand().accept(expressionTypeChecker);
-        String commands = "";
 
         if (operator == BinaryOperator.add){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "iadd\n";
+            binaryExpression.getFirstOperand().accept(this);
+            binaryExpression.getSecondOperand().accept(this);
+            emit(Opcode.IADD);
         }
         else if (operator == BinaryOperator.sub){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "isub\n";
+            binaryExpression.getFirstOperand().accept(this);
+            binaryExpression.getSecondOperand().accept(this);
+            emit(Opcode.ISUB);
         }
         else if (operator == BinaryOperator.mult){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "imul\n";
+            binaryExpression.getFirstOperand().accept(this);
+            binaryExpression.getSecondOperand().accept(this);
+            emit(Opcode.IMUL);
         }
         else if (operator == BinaryOperator.div){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "idiv\n";
-        }
-        else if (operator == BinaryOperator.gt || operator == BinaryOperator.lt){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-
-            String labelFalse = getFreshLabel();
-            String labelAfter = getFreshLabel();
-
-            if(operator == BinaryOperator.gt)
-                commands += "if_icmple " + labelFalse + "\n";
-            else
-                commands += "if_icmpge " + labelFalse + "\n";
-            commands += "ldc " + "1\n";
-            commands += "goto " + labelAfter + "\n";
-            commands += labelFalse + ":\n";
-            commands += "ldc " + "0\n";
-            commands += labelAfter + ":\n";
-        }
-        else if (operator == BinaryOperator.eq){
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += binaryExpression.getSecondOperand().accept(this);
-
-            String labelFalse = getFreshLabel();
-            String labelAfter = getFreshLabel();
-
-            if (!(operandType instanceof IntType) && !(operandType instanceof BoolType))
-                commands += "if_acmpne " + labelFalse + "\n";
-            else
-                commands += "if_icmpne " + labelFalse + "\n";
-            commands += "ldc " + "1\n";
-            commands += "goto " + labelAfter + "\n";
-            commands += labelFalse + ":\n";
-            commands += "ldc " + "0\n";
-            commands += labelAfter + ":\n";
-        }
-        else if (operator == BinaryOperator.and){
-            String labelFalse = getFreshLabel();
-            String labelAfter = getFreshLabel();
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += "ifeq " + labelFalse + "\n";
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "ifeq " + labelFalse + "\n";
-            commands += "ldc " + "1\n";
-            commands += "goto " + labelAfter + "\n";
-            commands += labelFalse + ":\n";
-            commands += "ldc " + "0\n";
-            commands += labelAfter + ":\n";
-        }
-        else if(operator == BinaryOperator.or) {
-            String labelTrue = getFreshLabel();
-            String labelAfter = getFreshLabel();
-            commands += binaryExpression.getFirstOperand().accept(this);
-            commands += "ifne " + labelTrue + "\n";
-            commands += binaryExpression.getSecondOperand().accept(this);
-            commands += "ifne " + labelTrue + "\n";
-            commands += "ldc " + "0\n";
-            commands += "goto " + labelAfter + "\n";
-            commands += labelTrue + ":\n";
-            commands += "ldc " + "1\n";
-            commands += labelAfter + ":\n";
+            binaryExpression.getFirstOperand().accept(this);
+            binaryExpression.getSecondOperand().accept(this);
+            emit(Opcode.IDIV);
         }
+        else if (operator == BinaryOperator.gt || operator == BinaryOperator.lt || operator == BinaryOperator.eq
+                || operator == BinaryOperator.and || operator == BinaryOperator.or)
+            emitBooleanValue(binaryExpression);
         else if (operator == BinaryOperator.assign){
-            Type firstType = binaryExpression.getFirstOperand().accept(expressionTypeChecker);
-            Type secondType = binaryExpression.getSecondOperand().accept(expressionTypeChecker);
-            String secondOperandCommands = binaryExpression.getSecondOperand().accept(this);
-
-            if(firstType instanceof ListType)
-                secondOperandCommands = "new List\ndup\n" + secondOperandCommands + "invokespecial List/<init>(LList;)V\n";
-            if(secondType instanceof IntType)
-                secondOperandCommands += "invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;\n";
-            if(secondType instanceof BoolType)
-                secondOperandCommands += "invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;\n";
+            Type firstType = binaryExpression.getFirstOperand().getType();
+            Type secondType = binaryExpression.getSecondOperand().getType();
+            Expression secondOperand = binaryExpression.getSecondOperand();
 
             if(binaryExpression.getFirstOperand() instanceof Identifier){
                 Identifier identifier = (Identifier)binaryExpression.getFirstOperand();
-                int slot = slotOf(identifier.getName());
-                commands += secondOperandCommands;
-                commands += "astore " + slot + "\n";
-                commands += "aload " + slot + "\n";
-                if (secondType instanceof IntType)
-                    commands += "invokevirtual java/lang/Integer/intValue()I\n";
-                if (secondType instanceof BoolType)
-                    commands += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
+                int slot = slots.slotOf(identifier);
+                if(firstType instanceof ListType)
+                    emitAssignedValue(firstType, secondType, secondOperand);
+                else
+                    secondOperand.accept(this);
+                store(secondType, slot);
+                load(secondType, slot);
+                forgetCachedAccesses();
             }
             else if (binaryExpression.getFirstOperand() instanceof ListAccessByIndex){
                 Expression instance = ((ListAccessByIndex) binaryExpression.getFirstOperand()).getInstance();
                 Expression index = ((ListAccessByIndex) binaryExpression.getFirstOperand()).getIndex();
-                commands += instance.accept(this);
-                commands += index.accept(this);
-                commands += secondOperandCommands;
-                commands += "invokevirtual List/setElement(ILjava/lang/Object;)V\n";
-
-                commands += instance.accept(this);
-                commands += index.accept(this);
-                commands += "invokevirtual List/getElement(I)Ljava/lang/Object;\n";
-                commands += "checkcast " + castType(secondType) + "\n";
-                if (secondType instanceof IntType)
-                    commands += "invokevirtual java/lang/Integer/intValue()I\n";
-                if (secondType instanceof BoolType)
-                    commands += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
+                ListType listType = (ListType) instance.getType();
+                instance.accept(this);
+                index.accept(this);
+                if(isPremitive(firstType))
+                    secondOperand.accept(this);
+                else
+                    emitAssignedValue(firstType, secondType, secondOperand);
+                emitListSet(listType);
+                forgetCachedAccesses();
+
+                instance.accept(this);
+                index.accept(this);
+                emitListGet(listType);
             }
             else {
                 Expression instance = ((StructAccess) binaryExpression.getFirstOperand()).getInstance();
-                StructType instanceType = (StructType)instance.accept(expressionTypeChecker);
+                StructType instanceType = (StructType)instance.getType();
                 Identifier element = ((StructAccess) binaryExpression.getFirstOperand()).getElement();
                 String structName = instanceType.getStructName().getName();
                 String varName = element.getName();
 
-                commands += instance.accept(this);
-                commands += secondOperandCommands;
-                commands += "putfield " + structName + "/" + varName + " L" + castType(firstType) + ";\n";
+                instance.accept(this);
+                emitAssignedValue(firstType, secondType, secondOperand);
+                emit(Opcode.PUTFIELD, structName + "/" + varName + " L" + castType(firstType) + ";");
+                forgetCachedAccesses();
 
-                commands += instance.accept(this);
-                commands += "getfield " + structName + "/" + varName + " L" + castType(firstType) + ";\n";
+                instance.accept(this);
+                emit(Opcode.GETFIELD, structName + "/" + varName + " L" + castType(firstType) + ";");
             }
         }
-        return commands;
+        return null;
     }
 
     @Override
-    public String visit(UnaryExpression unaryExpression){
+    public Void visit(UnaryExpression unaryExpression){
+        unaryExpression.getOperand().accept(this);
+        if (unaryExpression.getOperator() == UnaryOperator.minus)
+            emit(Opcode.INEG);
+        else {
+            emit(Opcode.ICONST_1);
+            emit(Opcode.IXOR);
+        }
         return null;
     }
 
     @Override
-    public String visit(StructAccess structAccess){
-        String commands = null;
-
-
+    public Void visit(StructAccess structAccess){
         Expression ins = structAccess.getInstance();
 
         Identifier element = structAccess.getElement();
-        StructType insType = (StructType)ins.accept(expressionTypeChecker);
+        StructType insType = (StructType)ins.getType();
         String structName = insType.getStructName().getName();
 
         String varName = element.getName();
-        Type type = structAccess.accept(expressionTypeChecker);
+        Type type = structAccess.getType();
+        String key = CommonAccesses.keyOf(structAccess);
+        if (loadCachedAccess(key, type))
+            return null;
 
-        commands += ins.accept(this);
+        ins.accept(this);
 
-        commands += "getfield " + structName + "/" + varName + " L" + castType(type) + ";\n";
-        commands += convertPremitive(type);
-        return commands;
+        emit(Opcode.GETFIELD, structName + "/" + varName + " L" + castType(type) + ";");
+        convertPremitive(type);
+        cacheAccess(key, type);
+        return null;
     }
 
     @Override
-    public String visit(Identifier identifier){
-        String command = "";
+    public Void visit(Identifier identifier){
         String Key = FunctionSymbolTableItem.START_KEY + identifier.getName();
-        Type type = identifier.accept(expressionTypeChecker);
+        Type type = identifier.getType();
 
         try {
-            SymbolTable.root.getItem(Key);
-            command += "new Fptr\n";
-            command += "dup\n";
-            command += "aload 0\n";
-            command += "ldc \"" + identifier.getName() + "\"\n";
-            command += "invokespecial Fptr/<init>(Ljava/lang/Object;Ljava/lang/String;)V\n";
+            SymbolTable.root().getItem(Key);
+            emit(Opcode.NEW, "Fptr");
+            emit(Opcode.DUP);
+            emit(Opcode.ALOAD, 0);
+            emit(Opcode.LDC, "\"" + identifier.getName() + "\"");
+            emit(Opcode.INVOKESPECIAL, "Fptr/<init>(Ljava/lang/Object;Ljava/lang/String;)V");
         }catch (ItemNotFoundException e){
 
-            int slotNum = slotOf(identifier.getName());
-            command += "aload " + slotNum + "\n";
-            command += convertPremitive(type);
+            load(type, slots.slotOf(identifier));
         }
-        return command;
+        return null;
     }
 
     @Override
-    public String visit(ListAccessByIndex listAccessByIndex){
-        String commands = "";
-        String command = "";
-        ListType listType = (ListType)listAccessByIndex.getInstance().accept(expressionTypeChecker);
-        Type type = listAccessByIndex.accept(expressionTypeChecker);
-        commands += listAccessByIndex.getInstance().accept(this);
-        commands += listAccessByIndex.getIndex().accept(this);
-        commands += "invokevirtual List/getElement(I)Ljava/lang/Object;\n";
-        commands += "checkcast " + castType(listType.getType()) + "\n";
-        commands += convertPremitive(listType.getType());
-        if (type instanceof IntType)
-            command += "invokevirtual java/lang/Integer/intValue()I\n";
-        if (type instanceof BoolType)
-            command += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-        return commands;
+    public Void visit(ListAccessByIndex listAccessByIndex){
+        ListType listType = (ListType)listAccessByIndex.getInstance().getType();
+        String key = CommonAccesses.keyOf(listAccessByIndex);
+        if (loadCachedAccess(key, listType.getType()))
+            return null;
+        listAccessByIndex.getInstance().accept(this);
+        listAccessByIndex.getIndex().accept(this);
+        emitListGet(listType);
+        cacheAccess(key, listType.getType());
+        return null;
     }
 
     @Override
-    public String visit(FunctionCall functionCall){
-        String commands = "";
-        int tempSlot = slotOf("");
-
-        FptrType fptrType = (FptrType) functionCall.getInstance().accept(expressionTypeChecker);
-        Type retType = fptrType.getReturnType();
-        String command = "";
+    public Void visit(FunctionCall functionCall){
         ArrayList<Expression> args = functionCall.getArgs();
+        FunctionSymbolTableItem function = knownFunction(functionCall.getInstance());
+        if (function != null) {
+            emit(Opcode.ALOAD, 0);
+            for (Expression arg : args)
+                emitBoxedArgument(arg);
+            emit(Opcode.INVOKEVIRTUAL, "Main/" + function.getName() + methodDescriptor(function.getArgTypes(), function.getReturnType()));
+            forgetCachedAccesses();
+            convertPremitive(function.getReturnType());
+            return null;
+        }
 
-        commands += functionCall.getInstance().accept(this);
-        commands += "new java/util/ArrayList\n";
-        commands += "dup\n";
-        commands += "invokespecial java/util/ArrayList/<init>()V\n";
-        commands += "astore " + tempSlot + "\n";
-
-        for(Expression arg : args) {
-            commands += "aload " + tempSlot + "\n";
-
-            Type argType = arg.accept(expressionTypeChecker);
+        FptrType fptrType = (FptrType) functionCall.getInstance().getType();
+        Type retType = fptrType.getReturnType();
 
-            if(argType instanceof ListType) {
-                commands += "new List\n";
-                commands += "dup\n";
+        functionCall.getInstance().accept(this);
+        if (supportsInvokeDynamic()) {
+            StringBuilder descriptor = new StringBuilder("(LFptr;");
+            for(Expression arg : args) {
+                emitBoxedArgument(arg);
+                descriptor.append("Ljava/lang/Object;");
             }
-            commands += arg.accept(this);
-
-            if(argType instanceof ListType) {
-                commands += "invokespecial List/<init>(LList;)V\n";
+            emit(Opcode.INVOKEDYNAMIC, "call" + descriptor + ")Ljava/lang/Object;");
+        }
+        else if (args.size() <= MAX_FIXED_ARITY) {
+            StringBuilder descriptor = new StringBuilder("(");
+            for(Expression arg : args) {
+                emitBoxedArgument(arg);
+                descriptor.append("Ljava/lang/Object;");
             }
-            commands += convertNonPremitive(argType);
-            commands += "invokevirtual java/util/ArrayList/add(Ljava/lang/Object;)Z\n";
-            commands += "pop\n";
-
+            emit(Opcode.INVOKEVIRTUAL, "Fptr/invoke" + args.size() + descriptor + ")Ljava/lang/Object;");
         }
-        commands += "aload " + tempSlot + "\n";
-        commands += "invokevirtual Fptr/invoke(Ljava/util/ArrayList;)Ljava/lang/Object;\n";
-        if(!(retType instanceof VoidType))
-            commands += "checkcast " + makeTypeSignature(retType) + "\n";
-
-        if (retType instanceof IntType)
-            command += "invokevirtual java/lang/Integer/intValue()I\n";
-        if (retType instanceof BoolType)
-            command += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-
+        else {
+            int tempSlot = newTemp();
+            busyTemps.add(tempSlot);
+            emit(Opcode.NEW, "java/util/ArrayList");
+            emit(Opcode.DUP);
+            emit(Opcode.INVOKESPECIAL, "java/util/ArrayList/<init>()V");
+            emit(Opcode.ASTORE, tempSlot);
+
+            for(Expression arg : args) {
+                emit(Opcode.ALOAD, tempSlot);
+                emitBoxedArgument(arg);
+                emit(Opcode.INVOKEVIRTUAL, "java/util/ArrayList/add(Ljava/lang/Object;)Z");
+                emit(Opcode.POP);
+            }
+            emit(Opcode.ALOAD, tempSlot);
+            emit(Opcode.INVOKEVIRTUAL, "Fptr/invoke(Ljava/util/ArrayList;)Ljava/lang/Object;");
+            busyTemps.remove(tempSlot);
+        }
+        forgetCachedAccesses();
         if(!(retType instanceof VoidType))
-            commands += "checkcast " + castType(retType) + "\n";
+            emit(Opcode.CHECKCAST, makeTypeSignature(retType));
 
-        commands += convertPremitive(retType);
-        return commands;
+        convertPremitive(retType);
+        return null;
     }
 
     @Override
-    public String visit(ListSize listSize){
-        String commands = "";
-        commands += listSize.getArg().accept(this);
-        commands += "invokevirtual List/getSize()I\n";
-        return commands;
+    public Void visit(ListSize listSize){
+        listSize.getArg().accept(this);
+        emit(Opcode.INVOKEVIRTUAL, listClass((ListType) listSize.getArg().getType()) + "/getSize()I");
+        return null;
     }
 
     @Override
-    public String visit(ListAppend listAppend) {
-        String commands = "";
-        Type elementType = listAppend.getElementArg().accept(expressionTypeChecker);
-        commands += listAppend.getListArg().accept(this);
-        commands += listAppend.getElementArg().accept(this);
-        commands += convertNonPremitive(elementType);
-        commands += "invokevirtual List/addElement(Ljava/lang/Object;)V\n";
-        return commands;
+    public Void visit(ListAppend listAppend) {
+        ListType listType = (ListType) listAppend.getListArg().getType();
+        listAppend.getListArg().accept(this);
+        listAppend.getElementArg().accept(this);
+        emit(Opcode.INVOKEVIRTUAL, listClass(listType) + "/add" + elementSuffix(listType) + "(" + elementDescriptor(listType) + ")V");
+        forgetCachedAccesses();
+        return null;
     }
 
     @Override
-    public String visit(IntValue intValue) {
-        String commands = "";
-        commands += "ldc " + intValue.getConstant() + "\n";
-        return commands;
+    public Void visit(IntValue intValue) {
+        emit(Opcode.LDC, intValue.getConstant());
+        return null;
     }
 
     @Override
-    public String visit(BoolValue boolValue) {
-        String commands = "";
+    public Void visit(BoolValue boolValue) {
         if(boolValue.getConstant())
-            commands += "ldc " + "1\n";
+            emit(Opcode.LDC, 1);
         else
-            commands += "ldc " + "0\n";
-        return commands;
-
+            emit(Opcode.LDC, 0);
+        return null;
     }
 
     @Override
-    public String visit(ExprInPar exprInPar) {
+    public Void visit(ExprInPar exprInPar) {
         return exprInPar.getInputs().get(0).accept(this);
     }
 }
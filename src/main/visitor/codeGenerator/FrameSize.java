@@ -0,0 +1,115 @@
+package main.visitor.codeGenerator;
+
+import java.util.*;
+
+//works out the operand stack depth and the number of locals a method body really needs;
+//every value the generator handles is one slot wide, so no long or double bookkeeping is needed
+public class FrameSize {
+
+    private FrameSize() {
+    }
+
+    //the receiver, unless static, and one slot per argument of a ".method" header
+    public static int argumentSlots(String header) {
+        String descriptor = header.substring(header.indexOf('('));
+        return (header.contains(" static ") ? 0 : 1) + argumentCount(descriptor);
+    }
+
+    public static int maxLocals(InstructionList code, int argumentSlots) {
+        int locals = argumentSlots;
+        for (Instruction instruction : code) {
+            switch (instruction.getOpcode()) {
+                case ILOAD:
+                case ALOAD:
+                case ISTORE:
+                case ASTORE:
+                    locals = Math.max(locals, instruction.getIntOperand() + 1);
+                    break;
+                case IINC:
+                    locals = Math.max(locals, Integer.parseInt(instruction.getOperand().split(" ")[0]) + 1);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return locals;
+    }
+
+    //follows every path through the body, the depth at each instruction being the same on all paths reaching it
+    public static int maxStack(InstructionList code) {
+        Map<String, Integer> labels = new HashMap<>();
+        for (int i = 0; i < code.size(); i++)
+            if (code.get(i).isLabel())
+                labels.put(code.get(i).getOperand(), i);
+
+        int[] depths = new int[code.size()];
+        Arrays.fill(depths, -1);
+        Deque<int[]> worklist = new ArrayDeque<>();
+        worklist.push(new int[] {0, 0});
+        int max = 0;
+        while (!worklist.isEmpty()) {
+            int[] start = worklist.pop();
+            int depth = start[1];
+            for (int i = start[0]; i < code.size() && depths[i] < 0; i++) {
+                depths[i] = depth;
+                Instruction instruction = code.get(i);
+                depth += stackEffect(instruction);
+                max = Math.max(max, depth);
+                Opcode opcode = instruction.getOpcode();
+                if (opcode.isJump())
+                    worklist.push(new int[] {labels.get(instruction.getOperand()), depth});
+                if (opcode == Opcode.GOTO || opcode == Opcode.RETURN || opcode == Opcode.ARETURN || opcode == Opcode.IRETURN)
+                    break;
+            }
+        }
+        return max;
+    }
+
+    private static int argumentCount(String descriptor) {
+        int count = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            while (descriptor.charAt(i) == '[')
+                i++;
+            if (descriptor.charAt(i) == 'L')
+                i = descriptor.indexOf(';', i);
+            i++;
+            count++;
+        }
+        return count;
+    }
+
+    private static int returnSize(String descriptor) {
+        return descriptor.endsWith(")V") ? 0 : 1;
+    }
+
+    private static int stackEffect(Instruction instruction) {
+        String operand = instruction.getOperand() == null ? null : instruction.getOperand().split(" ")[0];
+        switch (instruction.getOpcode()) {
+            case ACONST_NULL: case ICONST_M1: case ICONST_0: case ICONST_1: case ICONST_2: case ICONST_3:
+            case ICONST_4: case ICONST_5: case BIPUSH: case SIPUSH: case LDC: case ILOAD: case ALOAD:
+            case DUP: case DUP_X1: case DUP_X2: case NEW: case GETSTATIC:
+                return 1;
+            case DUP2:
+                return 2;
+            case ISTORE: case ASTORE: case POP: case IADD: case ISUB: case IMUL: case IDIV: case IREM:
+            case ISHL: case ISHR: case IUSHR: case IAND: case IOR: case IXOR:
+            case IFEQ: case IFNE: case IFLT: case IFGE: case IFGT: case IFLE: case IFNULL: case IFNONNULL:
+            case IRETURN: case ARETURN: case PUTSTATIC:
+                return -1;
+            case POP2: case IF_ICMPEQ: case IF_ICMPNE: case IF_ICMPLT: case IF_ICMPGE: case IF_ICMPGT:
+            case IF_ICMPLE: case IF_ACMPEQ: case IF_ACMPNE: case PUTFIELD:
+                return -2;
+            case INVOKEVIRTUAL: case INVOKESPECIAL: case INVOKEINTERFACE: {
+                String descriptor = operand.substring(operand.indexOf('('));
+                return returnSize(descriptor) - argumentCount(descriptor) - 1;
+            }
+            case INVOKESTATIC: case INVOKEDYNAMIC: {
+                String descriptor = operand.substring(operand.indexOf('('));
+                return returnSize(descriptor) - argumentCount(descriptor);
+            }
+            default:
+                return 0;
+        }
+    }
+}
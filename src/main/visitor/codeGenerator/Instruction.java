@@ -0,0 +1,40 @@
+package main.visitor.codeGenerator;
+
+public class Instruction {
+    private final Opcode opcode;
+    private final String operand;
+
+    public Instruction(Opcode opcode) {
+        this(opcode, null);
+    }
+
+    public Instruction(Opcode opcode, String operand) {
+        this.opcode = opcode;
+        this.operand = operand;
+    }
+
+    public Opcode getOpcode() {
+        return opcode;
+    }
+
+    public String getOperand() {
+        return operand;
+    }
+
+    public int getIntOperand() {
+        return Integer.parseInt(operand);
+    }
+
+    public boolean isLabel() {
+        return opcode == Opcode.LABEL;
+    }
+
+    @Override
+    public String toString() {
+        if (isLabel())
+            return operand + ":";
+        if (operand == null)
+            return opcode.getMnemonic();
+        return opcode.getMnemonic() + " " + operand;
+    }
+}
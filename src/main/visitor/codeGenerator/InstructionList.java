@@ -0,0 +1,49 @@
+package main.visitor.codeGenerator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+public class InstructionList implements Iterable<Instruction> {
+    private final ArrayList<Instruction> instructions = new ArrayList<>();
+
+    public void add(Opcode opcode) {
+        instructions.add(new Instruction(opcode));
+    }
+
+    public void add(Opcode opcode, String operand) {
+        instructions.add(new Instruction(opcode, operand));
+    }
+
+    public void add(Opcode opcode, int operand) {
+        instructions.add(new Instruction(opcode, String.valueOf(operand)));
+    }
+
+    public void add(Instruction instruction) {
+        instructions.add(instruction);
+    }
+
+    public void addLabel(String label) {
+        instructions.add(new Instruction(Opcode.LABEL, label));
+    }
+
+    public void addAll(InstructionList other) {
+        instructions.addAll(other.instructions);
+    }
+
+    public void clear() {
+        instructions.clear();
+    }
+
+    public Instruction get(int index) {
+        return instructions.get(index);
+    }
+
+    public int size() {
+        return instructions.size();
+    }
+
+    @Override
+    public Iterator<Instruction> iterator() {
+        return instructions.iterator();
+    }
+}
@@ -0,0 +1,38 @@
+package main.visitor.codeGenerator;
+
+public enum Opcode {
+    LABEL(-1),
+    NOP(0), ACONST_NULL(1),
+    ICONST_M1(2), ICONST_0(3), ICONST_1(4), ICONST_2(5), ICONST_3(6), ICONST_4(7), ICONST_5(8),
+    BIPUSH(16), SIPUSH(17), LDC(18),
+    ILOAD(21), ALOAD(25), ISTORE(54), ASTORE(58),
+    POP(87), POP2(88), DUP(89), DUP_X1(90), DUP_X2(91), DUP2(92), SWAP(95),
+    IADD(96), ISUB(100), IMUL(104), IDIV(108), IREM(112), INEG(116),
+    ISHL(120), ISHR(122), IUSHR(124), IAND(126), IOR(128), IXOR(130), IINC(132),
+    IFEQ(153), IFNE(154), IFLT(155), IFGE(156), IFGT(157), IFLE(158),
+    IF_ICMPEQ(159), IF_ICMPNE(160), IF_ICMPLT(161), IF_ICMPGE(162), IF_ICMPGT(163), IF_ICMPLE(164),
+    IF_ACMPEQ(165), IF_ACMPNE(166), GOTO(167),
+    IRETURN(172), ARETURN(176), RETURN(177),
+    GETSTATIC(178), PUTSTATIC(179), GETFIELD(180), PUTFIELD(181),
+    INVOKEVIRTUAL(182), INVOKESPECIAL(183), INVOKESTATIC(184), INVOKEINTERFACE(185), INVOKEDYNAMIC(186),
+    NEW(187), CHECKCAST(192), INSTANCEOF(193),
+    IFNULL(198), IFNONNULL(199);
+
+    private final int code;
+
+    Opcode(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public boolean isJump() {
+        return (code >= IFEQ.code && code <= GOTO.code) || this == IFNULL || this == IFNONNULL;
+    }
+
+    public String getMnemonic() {
+        return name().toLowerCase();
+    }
+}
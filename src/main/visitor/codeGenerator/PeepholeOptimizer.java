@@ -0,0 +1,295 @@
+package main.visitor.codeGenerator;
+
+import java.util.*;
+
+//rewrites short instruction sequences of one method body into cheaper equivalents until none applies
+public class PeepholeOptimizer {
+    private static final Map<Opcode, Opcode> NEGATED = new EnumMap<>(Opcode.class);
+    private final ArrayList<Instruction> instructions = new ArrayList<>();
+    private int numberOfRewrites = 0;
+
+    static {
+        negates(Opcode.IFEQ, Opcode.IFNE);
+        negates(Opcode.IFLT, Opcode.IFGE);
+        negates(Opcode.IFGT, Opcode.IFLE);
+        negates(Opcode.IF_ICMPEQ, Opcode.IF_ICMPNE);
+        negates(Opcode.IF_ICMPLT, Opcode.IF_ICMPGE);
+        negates(Opcode.IF_ICMPGT, Opcode.IF_ICMPLE);
+        negates(Opcode.IF_ACMPEQ, Opcode.IF_ACMPNE);
+        negates(Opcode.IFNULL, Opcode.IFNONNULL);
+    }
+
+    private static void negates(Opcode first, Opcode second) {
+        NEGATED.put(first, second);
+        NEGATED.put(second, first);
+    }
+
+    private PeepholeOptimizer(InstructionList code) {
+        for (Instruction instruction : code)
+            instructions.add(instruction);
+    }
+
+    //returns how many sequences were rewritten
+    public static int optimize(InstructionList code) {
+        PeepholeOptimizer optimizer = new PeepholeOptimizer(code);
+        boolean changed = true;
+        while (changed) {
+            changed = optimizer.rewriteSequences();
+            changed |= optimizer.threadJumps();
+            changed |= optimizer.removeUnreachable();
+            changed |= optimizer.removeUnusedLabels();
+        }
+        code.clear();
+        for (Instruction instruction : optimizer.instructions)
+            code.add(instruction);
+        return optimizer.numberOfRewrites;
+    }
+
+    //null unless the instruction pushes an int constant
+    private static Integer constantOf(Instruction instruction) {
+        Opcode opcode = instruction.getOpcode();
+        if (opcode.getCode() >= Opcode.ICONST_M1.getCode() && opcode.getCode() <= Opcode.ICONST_5.getCode())
+            return opcode.getCode() - Opcode.ICONST_0.getCode();
+        if (opcode == Opcode.BIPUSH || opcode == Opcode.SIPUSH)
+            return instruction.getIntOperand();
+        if (opcode == Opcode.LDC && !instruction.getOperand().startsWith("\""))
+            return instruction.getIntOperand();
+        return null;
+    }
+
+    private static Instruction push(int value) {
+        if (value >= -1 && value <= 5)
+            return new Instruction(Opcode.valueOf(value == -1 ? "ICONST_M1" : "ICONST_" + value));
+        if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+            return new Instruction(Opcode.BIPUSH, String.valueOf(value));
+        if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+            return new Instruction(Opcode.SIPUSH, String.valueOf(value));
+        return new Instruction(Opcode.LDC, String.valueOf(value));
+    }
+
+    //the exponent when value is a power of two, -1 otherwise
+    private static int log2(Integer value) {
+        if (value == null || value <= 0 || Integer.bitCount(value) != 1)
+            return -1;
+        return Integer.numberOfTrailingZeros(value);
+    }
+
+    private static boolean isUnconditional(Opcode opcode) {
+        return opcode == Opcode.GOTO || opcode == Opcode.RETURN || opcode == Opcode.ARETURN || opcode == Opcode.IRETURN;
+    }
+
+    private Instruction at(int index) {
+        return index < instructions.size() ? instructions.get(index) : null;
+    }
+
+    private boolean is(int index, Opcode opcode) {
+        return index < instructions.size() && instructions.get(index).getOpcode() == opcode;
+    }
+
+    private boolean isConstant(int index) {
+        return index < instructions.size() && constantOf(instructions.get(index)) != null;
+    }
+
+    private void replace(int from, int count, Instruction... replacement) {
+        for (int i = 0; i < count; i++)
+            instructions.remove(from);
+        instructions.addAll(from, Arrays.asList(replacement));
+        numberOfRewrites++;
+    }
+
+    private int referencesTo(String label) {
+        int references = 0;
+        for (Instruction instruction : instructions)
+            if (instruction.getOpcode().isJump() && instruction.getOperand().equals(label))
+                references++;
+        return references;
+    }
+
+    private void retarget(String from, String to) {
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+            if (instruction.getOpcode().isJump() && instruction.getOperand().equals(from))
+                instructions.set(i, new Instruction(instruction.getOpcode(), to));
+        }
+    }
+
+    //whether label is one of the labels directly following index
+    private boolean landsAfter(int index, String label) {
+        for (int i = index + 1; is(i, Opcode.LABEL); i++)
+            if (at(i).getOperand().equals(label))
+                return true;
+        return false;
+    }
+
+    private boolean rewriteSequences() {
+        boolean changed = false;
+        for (int i = 0; i < instructions.size(); i++) {
+            while (i < instructions.size() && rewriteAt(i))
+                changed = true;
+        }
+        return changed;
+    }
+
+    private boolean rewriteAt(int i) {
+        Instruction first = instructions.get(i);
+        Opcode opcode = first.getOpcode();
+        Integer constant = constantOf(first);
+
+        //the shortest push for a constant
+        if (constant != null && push(constant).getOpcode() != opcode) {
+            replace(i, 1, push(constant));
+            return true;
+        }
+
+        //a value pushed only to be popped, like the reload after an assignment statement
+        if (is(i + 1, Opcode.POP) && (constant != null || opcode == Opcode.ILOAD || opcode == Opcode.ALOAD || opcode == Opcode.DUP)) {
+            replace(i, 2);
+            return true;
+        }
+
+        //boxing immediately undone
+        if (opcode == Opcode.INVOKESTATIC && is(i + 1, Opcode.INVOKEVIRTUAL)
+                && ((first.getOperand().equals("java/lang/Integer/valueOf(I)Ljava/lang/Integer;")
+                        && at(i + 1).getOperand().equals("java/lang/Integer/intValue()I"))
+                    || (first.getOperand().equals("java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;")
+                        && at(i + 1).getOperand().equals("java/lang/Boolean/booleanValue()Z")))) {
+            replace(i, 2);
+            return true;
+        }
+
+        //a negated boolean that is only tested
+        if (opcode == Opcode.ICONST_1 && is(i + 1, Opcode.IXOR) && (is(i + 2, Opcode.IFEQ) || is(i + 2, Opcode.IFNE))) {
+            replace(i, 3, new Instruction(NEGATED.get(at(i + 2).getOpcode()), at(i + 2).getOperand()));
+            return true;
+        }
+
+        //a test of a known boolean
+        if (constant != null && (is(i + 1, Opcode.IFEQ) || is(i + 1, Opcode.IFNE))) {
+            boolean jumps = (constant == 0) == is(i + 1, Opcode.IFEQ);
+            if (jumps)
+                replace(i, 2, new Instruction(Opcode.GOTO, at(i + 1).getOperand()));
+            else
+                replace(i, 2);
+            return true;
+        }
+
+        if (constant != null && rewriteTestedBoolean(i))
+            return true;
+
+        //a conditional jump over a goto
+        if (NEGATED.containsKey(opcode) && is(i + 1, Opcode.GOTO) && is(i + 2, Opcode.LABEL)
+                && at(i + 2).getOperand().equals(first.getOperand())) {
+            replace(i, 2, new Instruction(NEGATED.get(opcode), at(i + 1).getOperand()));
+            return true;
+        }
+
+        //a jump to the next instruction
+        if (opcode == Opcode.GOTO && landsAfter(i, first.getOperand())) {
+            replace(i, 1);
+            return true;
+        }
+
+        //multiplication and division by a power of two
+        int shift = log2(constant);
+        if (shift >= 0 && is(i + 1, Opcode.IMUL)) {
+            if (shift == 0)
+                replace(i, 2);
+            else
+                replace(i, 2, push(shift), new Instruction(Opcode.ISHL));
+            return true;
+        }
+        if (shift >= 0 && is(i + 1, Opcode.IDIV)) {
+            //a negative dividend is biased by divisor - 1 first so the shift rounds towards zero like idiv
+            if (shift == 0)
+                replace(i, 2);
+            else
+                replace(i, 2, new Instruction(Opcode.DUP), push(31), new Instruction(Opcode.ISHR),
+                        push(32 - shift), new Instruction(Opcode.IUSHR), new Instruction(Opcode.IADD),
+                        push(shift), new Instruction(Opcode.ISHR));
+            return true;
+        }
+        if (shift > 0 && is(i + 1, Opcode.ILOAD) && is(i + 2, Opcode.IMUL)) {
+            replace(i, 3, at(i + 1), push(shift), new Instruction(Opcode.ISHL));
+            return true;
+        }
+        return false;
+    }
+
+    //a boolean materialized as two constants and tested straight away, as in
+    //"iconst_1, goto After, False:, iconst_0, After:, ifeq Target"; each constant then decides its path on its own
+    private boolean rewriteTestedBoolean(int i) {
+        if (!is(i + 1, Opcode.GOTO) || !is(i + 2, Opcode.LABEL) || !isConstant(i + 3) || !is(i + 4, Opcode.LABEL)
+                || !(is(i + 5, Opcode.IFEQ) || is(i + 5, Opcode.IFNE)))
+            return false;
+        String labelAfter = at(i + 4).getOperand();
+        String labelOther = at(i + 2).getOperand();
+        String target = at(i + 5).getOperand();
+        if (!at(i + 1).getOperand().equals(labelAfter) || referencesTo(labelAfter) != 1
+                || target.equals(labelOther) || target.equals(labelAfter))
+            return false;
+
+        boolean jumpIfZero = is(i + 5, Opcode.IFEQ);
+        boolean fallingJumps = (constantOf(at(i)) == 0) == jumpIfZero;
+        boolean otherJumps = (constantOf(at(i + 3)) == 0) == jumpIfZero;
+        ArrayList<Instruction> replacement = new ArrayList<>();
+        if (fallingJumps)
+            replacement.add(new Instruction(Opcode.GOTO, target));
+        if (otherJumps)
+            retarget(labelOther, target);
+        else
+            replacement.add(new Instruction(Opcode.LABEL, labelOther));
+        replace(i, 6, replacement.toArray(new Instruction[0]));
+        return true;
+    }
+
+    //a jump landing on a goto goes straight to where that goto leads
+    private boolean threadJumps() {
+        Map<String, String> forwards = new HashMap<>();
+        for (int i = 0; i < instructions.size(); i++) {
+            if (!is(i, Opcode.LABEL))
+                continue;
+            int next = i + 1;
+            while (is(next, Opcode.LABEL))
+                next++;
+            if (is(next, Opcode.GOTO) && !at(next).getOperand().equals(at(i).getOperand()))
+                forwards.put(at(i).getOperand(), at(next).getOperand());
+        }
+        boolean changed = false;
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+            if (!instruction.getOpcode().isJump())
+                continue;
+            String target = instruction.getOperand();
+            Set<String> seen = new HashSet<>();
+            while (forwards.containsKey(target) && seen.add(target))
+                target = forwards.get(target);
+            if (!target.equals(instruction.getOperand()) && !seen.contains(target)) {
+                instructions.set(i, new Instruction(instruction.getOpcode(), target));
+                numberOfRewrites++;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean removeUnreachable() {
+        boolean changed = false;
+        for (int i = 0; i < instructions.size(); i++) {
+            if (!isUnconditional(instructions.get(i).getOpcode()))
+                continue;
+            while (i + 1 < instructions.size() && !is(i + 1, Opcode.LABEL)) {
+                instructions.remove(i + 1);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean removeUnusedLabels() {
+        Set<String> used = new HashSet<>();
+        for (Instruction instruction : instructions)
+            if (instruction.getOpcode().isJump())
+                used.add(instruction.getOperand());
+        return instructions.removeIf(instruction -> instruction.isLabel() && !used.contains(instruction.getOperand()));
+    }
+}
@@ -0,0 +1,94 @@
+package main.visitor.codeGenerator;
+
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.expression.Identifier;
+import main.ast.nodes.statement.*;
+import main.visitor.optimizer.TreeWalker;
+
+import java.util.*;
+
+//assigns every local of one body its slot up front; a slot is handed out again once the scope that declared it has ended
+public class SlotAllocator extends TreeWalker {
+    private final Map<VariableDeclaration, Integer> declared = new IdentityHashMap<>();
+    private final Map<Identifier, Integer> used = new IdentityHashMap<>();
+    private final Deque<Map<String, Integer>> scopes = new ArrayDeque<>();
+    private final TreeSet<Integer> freeSlots = new TreeSet<>();
+    private int numberOfSlots = 1;
+
+    public SlotAllocator(ArrayList<VariableDeclaration> args, Statement body) {
+        scopes.push(new HashMap<>());
+        for (VariableDeclaration arg : args)
+            declare(arg);
+        body.accept(this);
+    }
+
+    public int slotOf(VariableDeclaration variableDeclaration) {
+        return declared.get(variableDeclaration);
+    }
+
+    //null when the identifier does not name a local, like a function used as a value
+    public Integer slotOf(Identifier identifier) {
+        return used.get(identifier);
+    }
+
+    //slots from here on are never given to a local
+    public int getNumberOfSlots() {
+        return numberOfSlots;
+    }
+
+    private void declare(VariableDeclaration variableDeclaration) {
+        Integer slot = freeSlots.pollFirst();
+        if (slot == null)
+            slot = numberOfSlots++;
+        declared.put(variableDeclaration, slot);
+        scopes.peek().put(variableDeclaration.getVarName().getName(), slot);
+    }
+
+    private void inScope(Statement... statements) {
+        scopes.push(new HashMap<>());
+        for (Statement statement : statements)
+            statement.accept(this);
+        freeSlots.addAll(scopes.pop().values());
+    }
+
+    @Override
+    public Void visit(VariableDeclaration variableDeclaration) {
+        super.visit(variableDeclaration);
+        declare(variableDeclaration);
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        inScope(blockStmt.getStatements().toArray(new Statement[0]));
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        conditionalStmt.getCondition().accept(this);
+        inScope(conditionalStmt.getThenBody());
+        if (conditionalStmt.getElseBody() != null)
+            inScope(conditionalStmt.getElseBody());
+        return null;
+    }
+
+    @Override
+    public Void visit(LoopStmt loopStmt) {
+        inScope(loopStmt.getBody());
+        loopStmt.getCondition().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        for (Map<String, Integer> scope : scopes) {
+            Integer slot = scope.get(identifier.getName());
+            if (slot != null) {
+                used.put(identifier, slot);
+                break;
+            }
+        }
+        return null;
+    }
+}
@@ -28,7 +28,7 @@ public class NameAnalyser extends Visitor<Void> {
         StructSymbolTableItem newSymbolTableItem = new StructSymbolTableItem(structDec);
         newSymbolTableItem.setStructSymbolTable(newSymbolTable);
         try {
-            SymbolTable.root.put(newSymbolTableItem);
+            SymbolTable.root().put(newSymbolTableItem);
 
         } catch (ItemAlreadyExistsException e) {
             DuplicateStruct exception = new DuplicateStruct(structDec.getLine(), structDec.getStructName().getName());
@@ -39,7 +39,7 @@ public class NameAnalyser extends Visitor<Void> {
             try {
                 StructSymbolTableItem newStructSym = new StructSymbolTableItem(structDec);
                 newStructSym.setStructSymbolTable(newSymbolTable);
-                SymbolTable.root.put(newStructSym);
+                SymbolTable.root().put(newStructSym);
             } catch (ItemAlreadyExistsException e1) { //Unreachable
             }
         }
@@ -48,7 +48,7 @@ public class NameAnalyser extends Visitor<Void> {
     private void createFunctionSymbolTable(FunctionDeclaration funcDec) {
         FunctionSymbolTableItem newSymbolTableItem = new FunctionSymbolTableItem(funcDec);
         try {
-            SymbolTable.root.put(newSymbolTableItem);
+            SymbolTable.root().put(newSymbolTableItem);
 
         } catch (ItemAlreadyExistsException e) {
             DuplicateFunction exception = new DuplicateFunction(funcDec.getLine(), funcDec.getFunctionName().getName());
@@ -58,7 +58,7 @@ public class NameAnalyser extends Visitor<Void> {
             funcDec.setFunctionName(new Identifier(newName));
             try {
                 FunctionSymbolTableItem newFuncSym = new FunctionSymbolTableItem(funcDec);
-                SymbolTable.root.put(newFuncSym);
+                SymbolTable.root().put(newFuncSym);
             } catch (ItemAlreadyExistsException e1) { //Unreachable
             }
         }
@@ -66,7 +66,7 @@ public class NameAnalyser extends Visitor<Void> {
 
     private boolean hasConflict(String key) {
         try {
-            SymbolTable.root.getItem(key);
+            SymbolTable.root().getItem(key);
             return true;
         } catch (ItemNotFoundException exception) {
             return false;
@@ -86,7 +86,7 @@ public class NameAnalyser extends Visitor<Void> {
     @Override
     public Void visit(Program program) {
         SymbolTable root = new SymbolTable();
-        SymbolTable.root = root;
+        SymbolTable.setRoot(root);
         SymbolTable.push(root);
         for (StructDeclaration structDec : program.getStructs()) {
             createStructSymbolTable(structDec);
@@ -108,7 +108,7 @@ public class NameAnalyser extends Visitor<Void> {
         for (StructDeclaration structDec : program.getStructs()) {
             try {
                 String key = StructSymbolTableItem.START_KEY + structDec.getStructName().getName();
-                StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root.getItem(key);
+                StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root().getItem(key);
                 SymbolTable.push(structSymbolTableItem.getStructSymbolTable());
                 isInStruct = true;
                 curStructName = structDec.getStructName().getName();
@@ -170,12 +170,12 @@ public class NameAnalyser extends Visitor<Void> {
 
     @Override
     public Void visit(ConditionalStmt conditionalStmt) {
-        SymbolTable ifScope = new SymbolTable(SymbolTable.top);
+        SymbolTable ifScope = new SymbolTable(SymbolTable.top());
         SymbolTable.push(ifScope);
         conditionalStmt.getThenBody().accept(this);
         SymbolTable.pop();
         if (conditionalStmt.getElseBody() != null) {
-            SymbolTable elseScope = new SymbolTable(SymbolTable.top);
+            SymbolTable elseScope = new SymbolTable(SymbolTable.top());
             SymbolTable.push(elseScope);
             conditionalStmt.getElseBody().accept(this);
             SymbolTable.pop();
@@ -185,7 +185,7 @@ public class NameAnalyser extends Visitor<Void> {
 
     @Override
     public Void visit(LoopStmt loopStmt) {
-        SymbolTable loopScope = new SymbolTable(SymbolTable.top);
+        SymbolTable loopScope = new SymbolTable(SymbolTable.top());
         SymbolTable.push(loopScope);
         loopStmt.getBody().accept(this);
         SymbolTable.pop();
@@ -214,7 +214,7 @@ public class NameAnalyser extends Visitor<Void> {
             FunctionSymbolTableItem newItem = new FunctionSymbolTableItem(funcDec);
             newItem.setFunctionSymbolTable(newSym);
             try {
-                SymbolTable.top.put(newItem);
+                SymbolTable.top().put(newItem);
             } catch (ItemAlreadyExistsException e) {
                 setGetVarDeclaration.setVarName(new Identifier(name + "@" + newId));
                 funcDec.setFunctionName(new Identifier(name + "@" + newId));
@@ -222,7 +222,7 @@ public class NameAnalyser extends Visitor<Void> {
                 FunctionSymbolTableItem fSym = new FunctionSymbolTableItem(funcDec);
                 fSym.setFunctionSymbolTable(newSym);
                 try{
-                    SymbolTable.top.put(fSym);
+                    SymbolTable.top().put(fSym);
                 }catch (ItemAlreadyExistsException e2) {//unreachable
                 }
             }
@@ -230,9 +230,9 @@ public class NameAnalyser extends Visitor<Void> {
         else {
             try {
                 String key = FunctionSymbolTableItem.START_KEY + name;
-                FunctionSymbolTableItem fItem = (FunctionSymbolTableItem) SymbolTable.top.getItem(key);
+                FunctionSymbolTableItem fItem = (FunctionSymbolTableItem) SymbolTable.top().getItem(key);
                 SymbolTable sym = fItem.getFunctionSymbolTable();
-                sym.pre = SymbolTable.top;
+                sym.pre = SymbolTable.top();
                 SymbolTable.push(sym);
                 for (VariableDeclaration arg : setGetVarDeclaration.getArgs())
                     arg.accept(this);
@@ -268,12 +268,12 @@ public class NameAnalyser extends Visitor<Void> {
 
         VariableSymbolTableItem variableSymbolTableItem = new VariableSymbolTableItem(variableDeclaration.getVarName());
         try {
-            SymbolTable.top.getItem(variableSymbolTableItem.getKey());
+            SymbolTable.top().getItem(variableSymbolTableItem.getKey());
             DuplicateVar exception = new DuplicateVar(variableDeclaration.getLine(), name);
             variableDeclaration.addError(exception);
         } catch (ItemNotFoundException exception2) {
             try {
-                SymbolTable.top.put(variableSymbolTableItem);
+                SymbolTable.top().put(variableSymbolTableItem);
             } catch (ItemAlreadyExistsException exception3) { //unreachable
             }
         }
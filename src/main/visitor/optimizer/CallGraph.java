@@ -0,0 +1,75 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.*;
+import main.ast.nodes.expression.Identifier;
+
+import java.util.*;
+
+//an edge is any reference to a function, so functions only passed around as fptr values are kept too
+public class CallGraph extends TreeWalker {
+    private final Map<String, Set<String>> references = new HashMap<>();
+    private final Set<String> roots = new HashSet<>();
+    private Set<String> current;
+
+    public Set<String> getReachable() {
+        Set<String> reachable = new HashSet<>();
+        Deque<String> worklist = new ArrayDeque<>(roots);
+        while (!worklist.isEmpty()) {
+            String function = worklist.pop();
+            if (reachable.add(function))
+                worklist.addAll(references.get(function));
+        }
+        return reachable;
+    }
+
+    public Set<String> getCallees(String function) {
+        return references.getOrDefault(function, Collections.emptySet());
+    }
+
+    public boolean isRecursive(String function) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> worklist = new ArrayDeque<>(getCallees(function));
+        while (!worklist.isEmpty()) {
+            String callee = worklist.pop();
+            if (callee.equals(function))
+                return true;
+            if (visited.add(callee))
+                worklist.addAll(getCallees(callee));
+        }
+        return false;
+    }
+
+    @Override
+    public Void visit(Program program) {
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            references.put(functionDeclaration.getFunctionName().getName(), new HashSet<>());
+        return super.visit(program);
+    }
+
+    @Override
+    public Void visit(StructDeclaration structDeclaration) {
+        current = roots;
+        return super.visit(structDeclaration);
+    }
+
+    @Override
+    public Void visit(FunctionDeclaration functionDeclaration) {
+        current = references.get(functionDeclaration.getFunctionName().getName());
+        return super.visit(functionDeclaration);
+    }
+
+    @Override
+    public Void visit(MainDeclaration mainDeclaration) {
+        current = roots;
+        return super.visit(mainDeclaration);
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        if (references.containsKey(identifier.getName()))
+            current.add(identifier.getName());
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.values.primitive.*;
+
+import java.util.*;
+
+//counts the list and struct access chains of a body that are spelled out more than once
+public class CommonAccesses extends TreeWalker {
+    private final Map<String, Integer> occurrences = new HashMap<>();
+
+    //a key names the value an access chain reads, null when evaluating the chain could write or call out
+    public static String keyOf(Expression expression) {
+        if (expression instanceof Identifier)
+            return ((Identifier) expression).getName();
+        if (expression instanceof IntValue)
+            return String.valueOf(((IntValue) expression).getConstant());
+        if (expression instanceof BoolValue)
+            return String.valueOf(((BoolValue) expression).getConstant());
+        if (expression instanceof ExprInPar) {
+            ArrayList<Expression> inputs = ((ExprInPar) expression).getInputs();
+            return inputs.size() == 1 ? keyOf(inputs.get(0)) : null;
+        }
+        if (expression instanceof UnaryExpression) {
+            String operand = keyOf(((UnaryExpression) expression).getOperand());
+            return operand == null ? null : ((UnaryExpression) expression).getOperator() + "(" + operand + ")";
+        }
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            BinaryOperator operator = binaryExpression.getBinaryOperator();
+            if (operator == BinaryOperator.assign || operator == BinaryOperator.and || operator == BinaryOperator.or)
+                return null;
+            String first = keyOf(binaryExpression.getFirstOperand());
+            String second = keyOf(binaryExpression.getSecondOperand());
+            return first == null || second == null ? null : "(" + first + " " + operator + " " + second + ")";
+        }
+        if (expression instanceof ListSize) {
+            String list = keyOf(((ListSize) expression).getArg());
+            return list == null ? null : "size(" + list + ")";
+        }
+        if (expression instanceof ListAccessByIndex) {
+            String list = keyOf(((ListAccessByIndex) expression).getInstance());
+            String index = keyOf(((ListAccessByIndex) expression).getIndex());
+            return list == null || index == null ? null : list + "[" + index + "]";
+        }
+        if (expression instanceof StructAccess) {
+            String instance = keyOf(((StructAccess) expression).getInstance());
+            return instance == null ? null : instance + "." + ((StructAccess) expression).getElement().getName();
+        }
+        return null;
+    }
+
+    public boolean isCommon(String key) {
+        return key != null && occurrences.getOrDefault(key, 0) > 1;
+    }
+
+    private void count(Expression access) {
+        String key = keyOf(access);
+        if (key != null)
+            occurrences.put(key, occurrences.getOrDefault(key, 0) + 1);
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        count(listAccessByIndex);
+        return super.visit(listAccessByIndex);
+    }
+
+    @Override
+    public Void visit(StructAccess structAccess) {
+        count(structAccess);
+        return super.visit(structAccess);
+    }
+}
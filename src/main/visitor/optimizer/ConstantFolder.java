@@ -0,0 +1,184 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.*;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.*;
+import main.ast.nodes.expression.values.Value;
+import main.ast.nodes.expression.values.primitive.*;
+import main.ast.nodes.statement.*;
+import main.ast.types.primitives.*;
+
+import java.util.*;
+
+public class ConstantFolder extends ExpressionRewriter {
+    private int numberOfFolded = 0;
+    private LocalUsage localUsage = new LocalUsage();
+    private final Map<String, Value> constants = new HashMap<>();
+
+    public int getNumberOfFolded() {
+        return numberOfFolded;
+    }
+
+    private IntValue intValue(int constant, Node replaced) {
+        IntValue value = new IntValue(constant);
+        value.setLine(replaced.getLine());
+        value.setType(new IntType());
+        numberOfFolded++;
+        return value;
+    }
+
+    private BoolValue boolValue(boolean constant, Node replaced) {
+        BoolValue value = new BoolValue(constant);
+        value.setLine(replaced.getLine());
+        value.setType(new BoolType());
+        numberOfFolded++;
+        return value;
+    }
+
+    private BlockStmt emptyBlock(Node replaced) {
+        BlockStmt block = new BlockStmt();
+        block.setLine(replaced.getLine());
+        return block;
+    }
+
+    private void beginScope(ArrayList<VariableDeclaration> args, Statement body) {
+        localUsage = new LocalUsage();
+        for (VariableDeclaration arg : args)
+            localUsage.declare(arg);
+        body.accept(localUsage);
+        constants.clear();
+    }
+
+    @Override
+    protected Statement rewrite(Statement statement) {
+        statement.accept(this);
+        if (statement instanceof ConditionalStmt) {
+            ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+            if (conditionalStmt.getCondition() instanceof BoolValue) {
+                numberOfFolded++;
+                if (((BoolValue) conditionalStmt.getCondition()).getConstant())
+                    return conditionalStmt.getThenBody();
+                if (conditionalStmt.getElseBody() != null)
+                    return conditionalStmt.getElseBody();
+                return emptyBlock(statement);
+            }
+        }
+        if (statement instanceof LoopStmt) {
+            LoopStmt loopStmt = (LoopStmt) statement;
+            if (loopStmt.getCondition() instanceof BoolValue && !((BoolValue) loopStmt.getCondition()).getConstant()) {
+                numberOfFolded++;
+                return loopStmt.getIsDoWhile() ? loopStmt.getBody() : emptyBlock(statement);
+            }
+        }
+        return statement;
+    }
+
+    @Override
+    public Expression visit(StructDeclaration structDeclaration) {
+        //struct fields can be set from anywhere, so nothing is propagated inside structs
+        localUsage = new LocalUsage();
+        constants.clear();
+        return super.visit(structDeclaration);
+    }
+
+    @Override
+    public Expression visit(FunctionDeclaration functionDeclaration) {
+        beginScope(functionDeclaration.getArgs(), functionDeclaration.getBody());
+        return super.visit(functionDeclaration);
+    }
+
+    @Override
+    public Expression visit(MainDeclaration mainDeclaration) {
+        beginScope(new ArrayList<>(), mainDeclaration.getBody());
+        return super.visit(mainDeclaration);
+    }
+
+    @Override
+    public Expression visit(VariableDeclaration variableDeclaration) {
+        if (variableDeclaration.getDefaultValue() == null)
+            return null;
+        Expression defaultValue = variableDeclaration.getDefaultValue().accept(this);
+        variableDeclaration.setDefaultValue(defaultValue);
+        String name = variableDeclaration.getVarName().getName();
+        if (defaultValue instanceof Value && localUsage.isSingleAssignment(name))
+            constants.put(name, (Value) defaultValue);
+        return null;
+    }
+
+    @Override
+    public Expression visit(BinaryExpression binaryExpression) {
+        super.visit(binaryExpression);
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        Expression first = binaryExpression.getFirstOperand();
+        Expression second = binaryExpression.getSecondOperand();
+
+        //and/or are short circuit, so a constant first operand decides whether the second one runs at all
+        if (operator == BinaryOperator.and && first instanceof BoolValue) {
+            numberOfFolded++;
+            return ((BoolValue) first).getConstant() ? second : first;
+        }
+        if (operator == BinaryOperator.or && first instanceof BoolValue) {
+            numberOfFolded++;
+            return ((BoolValue) first).getConstant() ? first : second;
+        }
+        if (first instanceof IntValue && second instanceof IntValue) {
+            int firstConstant = ((IntValue) first).getConstant();
+            int secondConstant = ((IntValue) second).getConstant();
+            switch (operator) {
+                case add:
+                    return intValue(firstConstant + secondConstant, binaryExpression);
+                case sub:
+                    return intValue(firstConstant - secondConstant, binaryExpression);
+                case mult:
+                    return intValue(firstConstant * secondConstant, binaryExpression);
+                case div:
+                    if (secondConstant != 0) //division by zero is left to fail at runtime
+                        return intValue(firstConstant / secondConstant, binaryExpression);
+                    break;
+                case gt:
+                    return boolValue(firstConstant > secondConstant, binaryExpression);
+                case lt:
+                    return boolValue(firstConstant < secondConstant, binaryExpression);
+                case eq:
+                    return boolValue(firstConstant == secondConstant, binaryExpression);
+                default:
+                    break;
+            }
+        }
+        if (operator == BinaryOperator.eq && first instanceof BoolValue && second instanceof BoolValue)
+            return boolValue(((BoolValue) first).getConstant() == ((BoolValue) second).getConstant(), binaryExpression);
+        return binaryExpression;
+    }
+
+    @Override
+    public Expression visit(UnaryExpression unaryExpression) {
+        super.visit(unaryExpression);
+        Expression operand = unaryExpression.getOperand();
+        if (unaryExpression.getOperator() == UnaryOperator.minus && operand instanceof IntValue)
+            return intValue(-((IntValue) operand).getConstant(), unaryExpression);
+        if (unaryExpression.getOperator() == UnaryOperator.not && operand instanceof BoolValue)
+            return boolValue(!((BoolValue) operand).getConstant(), unaryExpression);
+        return unaryExpression;
+    }
+
+    @Override
+    public Expression visit(Identifier identifier) {
+        Value constant = constants.get(identifier.getName());
+        if (constant instanceof IntValue)
+            return intValue(((IntValue) constant).getConstant(), identifier);
+        if (constant instanceof BoolValue)
+            return boolValue(((BoolValue) constant).getConstant(), identifier);
+        return identifier;
+    }
+
+    @Override
+    public Expression visit(ExprInPar exprInPar) {
+        super.visit(exprInPar);
+        ArrayList<Expression> inputs = exprInPar.getInputs();
+        if (inputs.size() == 1 && inputs.get(0) instanceof Value)
+            return inputs.get(0);
+        return exprInPar;
+    }
+}
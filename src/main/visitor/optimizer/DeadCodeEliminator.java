@@ -0,0 +1,150 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.*;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.statement.*;
+import main.visitor.Visitor;
+
+import java.util.*;
+
+public class DeadCodeEliminator extends Visitor<Void> {
+    private int numberOfRemovedFunctions = 0;
+    private int numberOfRemovedStatements = 0;
+
+    public int getNumberOfRemovedFunctions() {
+        return numberOfRemovedFunctions;
+    }
+
+    public int getNumberOfRemovedStatements() {
+        return numberOfRemovedStatements;
+    }
+
+    public static boolean alwaysReturns(Statement statement) {
+        if (statement instanceof ReturnStmt)
+            return true;
+        if (statement instanceof BlockStmt) {
+            for (Statement inner : ((BlockStmt) statement).getStatements())
+                if (alwaysReturns(inner))
+                    return true;
+            return false;
+        }
+        if (statement instanceof ConditionalStmt) {
+            ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+            return conditionalStmt.getElseBody() != null && alwaysReturns(conditionalStmt.getThenBody())
+                    && alwaysReturns(conditionalStmt.getElseBody());
+        }
+        if (statement instanceof LoopStmt)
+            return ((LoopStmt) statement).getIsDoWhile() && alwaysReturns(((LoopStmt) statement).getBody());
+        return false;
+    }
+
+    private static boolean isEmpty(Statement statement) {
+        return statement instanceof BlockStmt && ((BlockStmt) statement).getStatements().isEmpty();
+    }
+
+    private Statement prune(Statement statement) {
+        statement.accept(this);
+        if (!(statement instanceof ConditionalStmt))
+            return statement;
+        ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+        if (conditionalStmt.getCondition() instanceof BoolValue) {
+            numberOfRemovedStatements++;
+            if (((BoolValue) conditionalStmt.getCondition()).getConstant())
+                return conditionalStmt.getThenBody();
+            if (conditionalStmt.getElseBody() != null)
+                return conditionalStmt.getElseBody();
+            return new BlockStmt();
+        }
+        if (conditionalStmt.getElseBody() != null && isEmpty(conditionalStmt.getElseBody())) {
+            numberOfRemovedStatements++;
+            conditionalStmt.setElseBody(null);
+        }
+        if (conditionalStmt.getElseBody() == null && isEmpty(conditionalStmt.getThenBody())
+                && !SideEffects.of(conditionalStmt.getCondition())) {
+            numberOfRemovedStatements++;
+            return new BlockStmt();
+        }
+        return statement;
+    }
+
+    @Override
+    public Void visit(Program program) {
+        CallGraph callGraph = new CallGraph();
+        program.accept(callGraph);
+        Set<String> reachable = callGraph.getReachable();
+        ArrayList<FunctionDeclaration> functions = new ArrayList<>();
+        for (FunctionDeclaration functionDeclaration : program.getFunctions()) {
+            if (reachable.contains(functionDeclaration.getFunctionName().getName()))
+                functions.add(functionDeclaration);
+            else
+                numberOfRemovedFunctions++;
+        }
+        program.setFunctions(functions);
+
+        for (StructDeclaration structDeclaration : program.getStructs())
+            structDeclaration.accept(this);
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            functionDeclaration.accept(this);
+        program.getMain().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(StructDeclaration structDeclaration) {
+        structDeclaration.setBody(prune(structDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionDeclaration functionDeclaration) {
+        functionDeclaration.setBody(prune(functionDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Void visit(MainDeclaration mainDeclaration) {
+        mainDeclaration.setBody(prune(mainDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Void visit(SetGetVarDeclaration setGetVarDeclaration) {
+        setGetVarDeclaration.setSetterBody(prune(setGetVarDeclaration.getSetterBody()));
+        setGetVarDeclaration.setGetterBody(prune(setGetVarDeclaration.getGetterBody()));
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        ArrayList<Statement> statements = new ArrayList<>();
+        ArrayList<Statement> original = blockStmt.getStatements();
+        for (int i = 0; i < original.size(); i++) {
+            Statement statement = prune(original.get(i));
+            if (isEmpty(statement))
+                continue;
+            statements.add(statement);
+            if (alwaysReturns(statement)) {
+                numberOfRemovedStatements += original.size() - i - 1;
+                break;
+            }
+        }
+        blockStmt.setStatements(statements);
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        conditionalStmt.setThenBody(prune(conditionalStmt.getThenBody()));
+        if (conditionalStmt.getElseBody() != null)
+            conditionalStmt.setElseBody(prune(conditionalStmt.getElseBody()));
+        return null;
+    }
+
+    @Override
+    public Void visit(LoopStmt loopStmt) {
+        loopStmt.setBody(prune(loopStmt.getBody()));
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.primitive.*;
+import main.visitor.Visitor;
+
+import java.util.*;
+
+//deep copies an expression, keeping lines and types, and replaces identifiers found in the substitutions
+public class ExpressionCloner extends Visitor<Expression> {
+    private final Map<String, Expression> substitutions;
+    private final Map<String, Integer> uses = new HashMap<>();
+    private int size = 0;
+
+    public ExpressionCloner(Map<String, Expression> substitutions) {
+        this.substitutions = substitutions;
+    }
+
+    public ExpressionCloner() {
+        this(new HashMap<>());
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getUses(String name) {
+        return uses.getOrDefault(name, 0);
+    }
+
+    private Expression copied(Expression copy, Expression original) {
+        copy.setLine(original.getLine());
+        copy.setType(original.getType());
+        size++;
+        return copy;
+    }
+
+    @Override
+    public Expression visit(BinaryExpression binaryExpression) {
+        return copied(new BinaryExpression(binaryExpression.getFirstOperand().accept(this),
+                binaryExpression.getSecondOperand().accept(this), binaryExpression.getBinaryOperator()), binaryExpression);
+    }
+
+    @Override
+    public Expression visit(UnaryExpression unaryExpression) {
+        return copied(new UnaryExpression(unaryExpression.getOperand().accept(this),
+                unaryExpression.getOperator()), unaryExpression);
+    }
+
+    @Override
+    public Expression visit(Identifier identifier) {
+        String name = identifier.getName();
+        if (substitutions.containsKey(name)) {
+            uses.put(name, getUses(name) + 1);
+            size++;
+            return substitutions.get(name).accept(new ExpressionCloner());
+        }
+        return copied(new Identifier(name), identifier);
+    }
+
+    @Override
+    public Expression visit(ListAccessByIndex listAccessByIndex) {
+        return copied(new ListAccessByIndex(listAccessByIndex.getInstance().accept(this),
+                listAccessByIndex.getIndex().accept(this)), listAccessByIndex);
+    }
+
+    @Override
+    public Expression visit(StructAccess structAccess) {
+        Identifier element = structAccess.getElement();
+        Identifier elementCopy = new Identifier(element.getName());
+        elementCopy.setLine(element.getLine());
+        elementCopy.setType(element.getType());
+        return copied(new StructAccess(structAccess.getInstance().accept(this), elementCopy), structAccess);
+    }
+
+    @Override
+    public Expression visit(FunctionCall functionCall) {
+        ArrayList<Expression> args = new ArrayList<>();
+        for (Expression arg : functionCall.getArgs())
+            args.add(arg.accept(this));
+        return copied(new FunctionCall(functionCall.getInstance().accept(this), args), functionCall);
+    }
+
+    @Override
+    public Expression visit(IntValue intValue) {
+        return copied(new IntValue(intValue.getConstant()), intValue);
+    }
+
+    @Override
+    public Expression visit(BoolValue boolValue) {
+        return copied(new BoolValue(boolValue.getConstant()), boolValue);
+    }
+
+    @Override
+    public Expression visit(ListSize listSize) {
+        return copied(new ListSize(listSize.getArg().accept(this)), listSize);
+    }
+
+    @Override
+    public Expression visit(ListAppend listAppend) {
+        return copied(new ListAppend(listAppend.getListArg().accept(this),
+                listAppend.getElementArg().accept(this)), listAppend);
+    }
+
+    @Override
+    public Expression visit(ExprInPar exprInPar) {
+        ArrayList<Expression> inputs = new ArrayList<>();
+        for (Expression input : exprInPar.getInputs())
+            inputs.add(input.accept(this));
+        return copied(new ExprInPar(inputs), exprInPar);
+    }
+}
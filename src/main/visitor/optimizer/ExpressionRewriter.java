@@ -0,0 +1,209 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.*;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.values.primitive.*;
+import main.ast.nodes.statement.*;
+import main.visitor.Visitor;
+
+import java.util.*;
+
+//expression visits return the expression that replaces the visited one, statements are replaced through rewrite
+public class ExpressionRewriter extends Visitor<Expression> {
+
+    protected Statement rewrite(Statement statement) {
+        statement.accept(this);
+        return statement;
+    }
+
+    @Override
+    public Expression visit(Program program) {
+        for (StructDeclaration structDeclaration : program.getStructs())
+            structDeclaration.accept(this);
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            functionDeclaration.accept(this);
+        program.getMain().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(StructDeclaration structDeclaration) {
+        structDeclaration.setBody(rewrite(structDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(FunctionDeclaration functionDeclaration) {
+        functionDeclaration.setBody(rewrite(functionDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(MainDeclaration mainDeclaration) {
+        mainDeclaration.setBody(rewrite(mainDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(VariableDeclaration variableDeclaration) {
+        if (variableDeclaration.getDefaultValue() != null)
+            variableDeclaration.setDefaultValue(variableDeclaration.getDefaultValue().accept(this));
+        return null;
+    }
+
+    @Override
+    public Expression visit(SetGetVarDeclaration setGetVarDeclaration) {
+        setGetVarDeclaration.setSetterBody(rewrite(setGetVarDeclaration.getSetterBody()));
+        setGetVarDeclaration.setGetterBody(rewrite(setGetVarDeclaration.getGetterBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(AssignmentStmt assignmentStmt) {
+        if (!(assignmentStmt.getLValue() instanceof Identifier))
+            assignmentStmt.setLValue(assignmentStmt.getLValue().accept(this));
+        assignmentStmt.setRValue(assignmentStmt.getRValue().accept(this));
+        return null;
+    }
+
+    @Override
+    public Expression visit(BlockStmt blockStmt) {
+        ArrayList<Statement> statements = new ArrayList<>();
+        for (Statement statement : blockStmt.getStatements())
+            statements.add(rewrite(statement));
+        blockStmt.setStatements(statements);
+        return null;
+    }
+
+    @Override
+    public Expression visit(ConditionalStmt conditionalStmt) {
+        conditionalStmt.setCondition(conditionalStmt.getCondition().accept(this));
+        conditionalStmt.setThenBody(rewrite(conditionalStmt.getThenBody()));
+        if (conditionalStmt.getElseBody() != null)
+            conditionalStmt.setElseBody(rewrite(conditionalStmt.getElseBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(DisplayStmt displayStmt) {
+        displayStmt.setArg(displayStmt.getArg().accept(this));
+        return null;
+    }
+
+    @Override
+    public Expression visit(ReturnStmt returnStmt) {
+        if (returnStmt.getReturnedExpr() != null)
+            returnStmt.setReturnedExpr(returnStmt.getReturnedExpr().accept(this));
+        return null;
+    }
+
+    @Override
+    public Expression visit(LoopStmt loopStmt) {
+        loopStmt.setCondition(loopStmt.getCondition().accept(this));
+        loopStmt.setBody(rewrite(loopStmt.getBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration variableDeclaration : varDecStmt.getVars())
+            variableDeclaration.accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(BinaryExpression binaryExpression) {
+        Expression first = binaryExpression.getFirstOperand();
+        if (binaryExpression.getBinaryOperator() != BinaryOperator.assign || !(first instanceof Identifier))
+            binaryExpression.setFirstOperand(first.accept(this));
+        binaryExpression.setSecondOperand(binaryExpression.getSecondOperand().accept(this));
+        return binaryExpression;
+    }
+
+    @Override
+    public Expression visit(UnaryExpression unaryExpression) {
+        unaryExpression.setOperand(unaryExpression.getOperand().accept(this));
+        return unaryExpression;
+    }
+
+    @Override
+    public Expression visit(Identifier identifier) {
+        return identifier;
+    }
+
+    @Override
+    public Expression visit(ListAccessByIndex listAccessByIndex) {
+        listAccessByIndex.setInstance(listAccessByIndex.getInstance().accept(this));
+        listAccessByIndex.setIndex(listAccessByIndex.getIndex().accept(this));
+        return listAccessByIndex;
+    }
+
+    @Override
+    public Expression visit(StructAccess structAccess) {
+        structAccess.setInstance(structAccess.getInstance().accept(this));
+        return structAccess;
+    }
+
+    @Override
+    public Expression visit(FunctionCall functionCall) {
+        functionCall.setInstance(functionCall.getInstance().accept(this));
+        ArrayList<Expression> args = new ArrayList<>();
+        for (Expression arg : functionCall.getArgs())
+            args.add(arg.accept(this));
+        functionCall.setArgs(args);
+        return functionCall;
+    }
+
+    @Override
+    public Expression visit(IntValue intValue) {
+        return intValue;
+    }
+
+    @Override
+    public Expression visit(BoolValue boolValue) {
+        return boolValue;
+    }
+
+    @Override
+    public Expression visit(ListSize listSize) {
+        listSize.setArg(listSize.getArg().accept(this));
+        return listSize;
+    }
+
+    @Override
+    public Expression visit(ListAppend listAppend) {
+        listAppend.setListArg(listAppend.getListArg().accept(this));
+        listAppend.setElementArg(listAppend.getElementArg().accept(this));
+        return listAppend;
+    }
+
+    @Override
+    public Expression visit(ExprInPar exprInPar) {
+        ArrayList<Expression> inputs = new ArrayList<>();
+        for (Expression input : exprInPar.getInputs())
+            inputs.add(input.accept(this));
+        exprInPar.setInputs(inputs);
+        return exprInPar;
+    }
+}
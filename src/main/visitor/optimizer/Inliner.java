@@ -0,0 +1,107 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.Value;
+import main.ast.nodes.statement.*;
+import main.ast.types.ListType;
+
+import java.util.*;
+
+//replaces calls to small non-recursive functions whose body is a single return with the returned expression
+public class Inliner extends ExpressionRewriter {
+    public static final int DEFAULT_SIZE_BUDGET = 16;
+
+    private final int sizeBudget;
+    private final Map<String, FunctionDeclaration> inlinable = new HashMap<>();
+    private int numberOfInlined = 0;
+
+    public Inliner(int sizeBudget) {
+        this.sizeBudget = sizeBudget;
+    }
+
+    public int getNumberOfInlined() {
+        return numberOfInlined;
+    }
+
+    private static Expression returnedExpression(FunctionDeclaration functionDeclaration) {
+        Statement body = functionDeclaration.getBody();
+        if (body instanceof BlockStmt && ((BlockStmt) body).getStatements().size() == 1)
+            body = ((BlockStmt) body).getStatements().get(0);
+        if (body instanceof ReturnStmt)
+            return ((ReturnStmt) body).getReturnedExpr();
+        return null;
+    }
+
+    //a list returned or written by the callee would be the caller's own list instead of a copy once inlined
+    private boolean isInlinable(FunctionDeclaration functionDeclaration, CallGraph callGraph) {
+        Expression returned = returnedExpression(functionDeclaration);
+        if (returned == null || functionDeclaration.getReturnType() instanceof ListType)
+            return false;
+        if (callGraph.isRecursive(functionDeclaration.getFunctionName().getName()))
+            return false;
+        if (SideEffects.writesIn(returned))
+            return false;
+        ExpressionCloner cloner = new ExpressionCloner();
+        returned.accept(cloner);
+        return cloner.getSize() <= sizeBudget;
+    }
+
+    private static boolean isDuplicable(Expression arg) {
+        return arg instanceof Value || arg instanceof Identifier;
+    }
+
+    private Expression inline(FunctionDeclaration callee, FunctionCall functionCall) {
+        ArrayList<VariableDeclaration> params = callee.getArgs();
+        ArrayList<Expression> args = functionCall.getArgs();
+        Map<String, Expression> substitutions = new HashMap<>();
+        for (int i = 0; i < params.size(); i++)
+            substitutions.put(params.get(i).getVarName().getName(), args.get(i));
+
+        ExpressionCloner cloner = new ExpressionCloner(substitutions);
+        Expression inlined = returnedExpression(callee).accept(cloner);
+        //arguments are evaluated exactly once in order at a real call, so anything else has to be free to repeat or drop;
+        //a call or write in the body may also run before a moved argument is read and change what it reads
+        boolean bodyHasEffects = SideEffects.of(returnedExpression(callee));
+        for (int i = 0; i < params.size(); i++) {
+            int uses = cloner.getUses(params.get(i).getVarName().getName());
+            if (!isDuplicable(args.get(i)) && (uses != 1 || bodyHasEffects || SideEffects.of(args.get(i))))
+                return functionCall;
+        }
+        numberOfInlined++;
+        return inlined.accept(this);
+    }
+
+    @Override
+    public Expression visit(Program program) {
+        CallGraph callGraph = new CallGraph();
+        program.accept(callGraph);
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            if (isInlinable(functionDeclaration, callGraph))
+                inlinable.put(functionDeclaration.getFunctionName().getName(), functionDeclaration);
+        return super.visit(program);
+    }
+
+    @Override
+    public Expression visit(FunctionCall functionCall) {
+        super.visit(functionCall);
+        if (!(functionCall.getInstance() instanceof Identifier))
+            return functionCall;
+        FunctionDeclaration callee = inlinable.get(((Identifier) functionCall.getInstance()).getName());
+        if (callee == null)
+            return functionCall;
+        return inline(callee, functionCall);
+    }
+
+    @Override
+    public Expression visit(FunctionCallStmt functionCallStmt) {
+        //a call statement needs a call to stay a statement, so only its arguments are inlined into
+        FunctionCall functionCall = functionCallStmt.getFunctionCall();
+        ArrayList<Expression> args = new ArrayList<>();
+        for (Expression arg : functionCall.getArgs())
+            args.add(arg.accept(this));
+        functionCall.setArgs(args);
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.statement.AssignmentStmt;
+
+import java.util.*;
+
+//collects how many times each local is declared and which locals are ever assigned after their declaration
+public class LocalUsage extends TreeWalker {
+    private final Map<String, Integer> declarations = new HashMap<>();
+    private final Set<String> assigned = new HashSet<>();
+
+    public void declare(VariableDeclaration variableDeclaration) {
+        String name = variableDeclaration.getVarName().getName();
+        declarations.put(name, declarations.getOrDefault(name, 0) + 1);
+    }
+
+    public boolean isSingleAssignment(String name) {
+        return declarations.getOrDefault(name, 0) == 1 && !assigned.contains(name);
+    }
+
+    private void assign(Expression lValue) {
+        if (lValue instanceof Identifier)
+            assigned.add(((Identifier) lValue).getName());
+        else
+            lValue.accept(this);
+    }
+
+    @Override
+    public Void visit(VariableDeclaration variableDeclaration) {
+        declare(variableDeclaration);
+        return super.visit(variableDeclaration);
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        assign(assignmentStmt.getLValue());
+        assignmentStmt.getRValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        if (binaryExpression.getBinaryOperator() == BinaryOperator.assign)
+            assign(binaryExpression.getFirstOperand());
+        else
+            binaryExpression.getFirstOperand().accept(this);
+        binaryExpression.getSecondOperand().accept(this);
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.statement.*;
+import main.ast.types.Type;
+import main.ast.types.primitives.*;
+
+import java.util.*;
+
+//moves int and bool expressions that a loop never changes into variables declared right before the loop
+public class LoopInvariantMover extends ExpressionRewriter {
+    private static final String TEMP_PREFIX = "$invariant";
+
+    private int numberOfHoisted = 0;
+    private LoopWrites writes = null;
+    private ArrayList<VariableDeclaration> hoisted;
+
+    public int getNumberOfHoisted() {
+        return numberOfHoisted;
+    }
+
+    @Override
+    protected Statement rewrite(Statement statement) {
+        statement.accept(this);
+        if (writes != null || !(statement instanceof LoopStmt))
+            return statement;
+        return hoist((LoopStmt) statement);
+    }
+
+    //inner loops are already done, so what they hoisted is in turn a candidate for this loop
+    private Statement hoist(LoopStmt loopStmt) {
+        writes = new LoopWrites();
+        loopStmt.accept(writes);
+        hoisted = new ArrayList<>();
+        loopStmt.setCondition(loopStmt.getCondition().accept(this));
+        loopStmt.setBody(rewrite(loopStmt.getBody()));
+        writes = null;
+        if (hoisted.isEmpty())
+            return loopStmt;
+
+        VarDecStmt preHeader = new VarDecStmt();
+        preHeader.setLine(loopStmt.getLine());
+        preHeader.setVars(hoisted);
+        BlockStmt block = new BlockStmt();
+        block.setLine(loopStmt.getLine());
+        block.addStatement(preHeader);
+        block.addStatement(loopStmt);
+        return block;
+    }
+
+    private boolean isHoistable(Expression expression) {
+        Type type = expression.getType();
+        return writes != null && (type instanceof IntType || type instanceof BoolType) && writes.isInvariant(expression);
+    }
+
+    private Identifier temporary(Expression expression) {
+        String name = TEMP_PREFIX + numberOfHoisted++;
+        Identifier declared = new Identifier(name);
+        declared.setLine(expression.getLine());
+        declared.setType(expression.getType());
+        VariableDeclaration variableDeclaration = new VariableDeclaration(declared, expression.getType());
+        variableDeclaration.setLine(expression.getLine());
+        variableDeclaration.setDefaultValue(expression);
+        hoisted.add(variableDeclaration);
+
+        Identifier use = new Identifier(name);
+        use.setLine(expression.getLine());
+        use.setType(expression.getType());
+        return use;
+    }
+
+    @Override
+    public Expression visit(BinaryExpression binaryExpression) {
+        if (isHoistable(binaryExpression))
+            return temporary(binaryExpression);
+        return super.visit(binaryExpression);
+    }
+
+    @Override
+    public Expression visit(UnaryExpression unaryExpression) {
+        if (isHoistable(unaryExpression))
+            return temporary(unaryExpression);
+        return super.visit(unaryExpression);
+    }
+
+    @Override
+    public Expression visit(ListSize listSize) {
+        if (isHoistable(listSize))
+            return temporary(listSize);
+        return super.visit(listSize);
+    }
+
+    @Override
+    public Expression visit(StructAccess structAccess) {
+        if (isHoistable(structAccess))
+            return temporary(structAccess);
+        return super.visit(structAccess);
+    }
+}
@@ -0,0 +1,84 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.values.primitive.*;
+import main.ast.nodes.statement.AssignmentStmt;
+
+import java.util.*;
+
+//collects everything a loop may change, so expressions that read none of it can be computed once before the loop
+public class LoopWrites extends TreeWalker {
+    private final Set<String> locals = new HashSet<>();
+    private final Set<String> fields = new HashSet<>();
+    private boolean calls = false;
+
+    private void write(Expression target) {
+        if (target instanceof Identifier)
+            locals.add(((Identifier) target).getName());
+        else if (target instanceof StructAccess)
+            fields.add(((StructAccess) target).getElement().getName());
+    }
+
+    //an invariant expression reads only unchanged locals and fields and can neither throw nor write
+    public boolean isInvariant(Expression expression) {
+        if (expression instanceof IntValue || expression instanceof BoolValue)
+            return true;
+        if (expression instanceof Identifier)
+            return !locals.contains(((Identifier) expression).getName());
+        if (expression instanceof ExprInPar) {
+            ArrayList<Expression> inputs = ((ExprInPar) expression).getInputs();
+            return inputs.size() == 1 && isInvariant(inputs.get(0));
+        }
+        if (expression instanceof UnaryExpression)
+            return isInvariant(((UnaryExpression) expression).getOperand());
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            BinaryOperator operator = binaryExpression.getBinaryOperator();
+            if (operator == BinaryOperator.assign || operator == BinaryOperator.div)
+                return false;
+            return isInvariant(binaryExpression.getFirstOperand()) && isInvariant(binaryExpression.getSecondOperand());
+        }
+        if (expression instanceof ListSize)
+            return isInvariant(((ListSize) expression).getArg());
+        if (expression instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) expression;
+            //any callee may set a field through a struct it was handed
+            return !calls && !fields.contains(structAccess.getElement().getName())
+                    && isInvariant(structAccess.getInstance());
+        }
+        return false;
+    }
+
+    @Override
+    public Void visit(VariableDeclaration variableDeclaration) {
+        locals.add(variableDeclaration.getVarName().getName());
+        return super.visit(variableDeclaration);
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        write(assignmentStmt.getLValue());
+        return super.visit(assignmentStmt);
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        if (binaryExpression.getBinaryOperator() == BinaryOperator.assign)
+            write(binaryExpression.getFirstOperand());
+        return super.visit(binaryExpression);
+    }
+
+    @Override
+    public Void visit(ListAppend listAppend) {
+        write(listAppend.getListArg());
+        return super.visit(listAppend);
+    }
+
+    @Override
+    public Void visit(FunctionCall functionCall) {
+        calls = true;
+        return super.visit(functionCall);
+    }
+}
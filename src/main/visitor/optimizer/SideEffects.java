@@ -0,0 +1,52 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+
+//anything that writes state, calls out, or may throw counts as a side effect
+public class SideEffects extends TreeWalker {
+    private boolean found = false;
+    private boolean writes = false;
+
+    public static boolean of(Expression expression) {
+        SideEffects sideEffects = new SideEffects();
+        expression.accept(sideEffects);
+        return sideEffects.found;
+    }
+
+    //only assignments and appends count, callees get their own copies of list arguments
+    public static boolean writesIn(Expression expression) {
+        SideEffects sideEffects = new SideEffects();
+        expression.accept(sideEffects);
+        return sideEffects.writes;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        if (operator == BinaryOperator.assign || operator == BinaryOperator.div)
+            found = true;
+        if (operator == BinaryOperator.assign)
+            writes = true;
+        return super.visit(binaryExpression);
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        found = true;
+        return super.visit(listAccessByIndex);
+    }
+
+    @Override
+    public Void visit(FunctionCall functionCall) {
+        found = true;
+        return super.visit(functionCall);
+    }
+
+    @Override
+    public Void visit(ListAppend listAppend) {
+        found = true;
+        writes = true;
+        return super.visit(listAppend);
+    }
+}
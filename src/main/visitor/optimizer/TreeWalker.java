@@ -0,0 +1,176 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.*;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.statement.*;
+import main.visitor.Visitor;
+
+//visits every node of the tree, so analyses only override the nodes they care about
+public class TreeWalker extends Visitor<Void> {
+
+    @Override
+    public Void visit(Program program) {
+        for (StructDeclaration structDeclaration : program.getStructs())
+            structDeclaration.accept(this);
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            functionDeclaration.accept(this);
+        program.getMain().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(StructDeclaration structDeclaration) {
+        structDeclaration.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionDeclaration functionDeclaration) {
+        functionDeclaration.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(MainDeclaration mainDeclaration) {
+        mainDeclaration.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(VariableDeclaration variableDeclaration) {
+        if (variableDeclaration.getDefaultValue() != null)
+            variableDeclaration.getDefaultValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(SetGetVarDeclaration setGetVarDeclaration) {
+        setGetVarDeclaration.getSetterBody().accept(this);
+        setGetVarDeclaration.getGetterBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        assignmentStmt.getLValue().accept(this);
+        assignmentStmt.getRValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        for (Statement statement : blockStmt.getStatements())
+            statement.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        conditionalStmt.getCondition().accept(this);
+        conditionalStmt.getThenBody().accept(this);
+        if (conditionalStmt.getElseBody() != null)
+            conditionalStmt.getElseBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(DisplayStmt displayStmt) {
+        displayStmt.getArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        if (returnStmt.getReturnedExpr() != null)
+            returnStmt.getReturnedExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(LoopStmt loopStmt) {
+        loopStmt.getCondition().accept(this);
+        loopStmt.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration variableDeclaration : varDecStmt.getVars())
+            variableDeclaration.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        binaryExpression.getFirstOperand().accept(this);
+        binaryExpression.getSecondOperand().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        unaryExpression.getOperand().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        listAccessByIndex.getInstance().accept(this);
+        listAccessByIndex.getIndex().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(StructAccess structAccess) {
+        structAccess.getInstance().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionCall functionCall) {
+        functionCall.getInstance().accept(this);
+        for (Expression arg : functionCall.getArgs())
+            arg.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSize listSize) {
+        listSize.getArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppend listAppend) {
+        listAppend.getListArg().accept(this);
+        listAppend.getElementArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ExprInPar exprInPar) {
+        for (Expression input : exprInPar.getInputs())
+            input.accept(this);
+        return null;
+    }
+}
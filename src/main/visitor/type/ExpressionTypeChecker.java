@@ -63,7 +63,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     public SymbolTable getStructSymbolTable(String name) {
         try {
             StructSymbolTableItem structItem = (StructSymbolTableItem)
-                    SymbolTable.root.getItem(StructSymbolTableItem.START_KEY + name);
+                    SymbolTable.root().getItem(StructSymbolTableItem.START_KEY + name);
             return structItem.getStructSymbolTable();
         } catch (ItemNotFoundException ignored) {
             return null;
@@ -74,13 +74,13 @@ public class ExpressionTypeChecker extends Visitor<Type> {
        String name = id.getName();
        try {
            String funcKey = FunctionSymbolTableItem.START_KEY + name;
-           FunctionSymbolTableItem functionItem = (FunctionSymbolTableItem) SymbolTable.root.getItem(funcKey);
+           FunctionSymbolTableItem functionItem = (FunctionSymbolTableItem) SymbolTable.root().getItem(funcKey);
            return new FptrType(functionItem.getArgTypes(), functionItem.getReturnType());
            
        }catch (ItemNotFoundException e) {
            try {
                String varKey = VariableSymbolTableItem.START_KEY + name;
-               VariableSymbolTableItem varItem = (VariableSymbolTableItem) SymbolTable.top.getItem(varKey);
+               VariableSymbolTableItem varItem = (VariableSymbolTableItem) SymbolTable.top().getItem(varKey);
                return varItem.getType();
            } catch (ItemNotFoundException e2) {
                VarNotDeclared exception = new VarNotDeclared(id.getLine(), name);
@@ -94,7 +94,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         if(expr instanceof Identifier){
             try {
                 String funcKey = FunctionSymbolTableItem.START_KEY + ((Identifier)expr).getName();
-                SymbolTable.root.getItem(funcKey);
+                SymbolTable.root().getItem(funcKey);
             }catch (ItemNotFoundException e) {
                 return true;
             }
@@ -109,8 +109,67 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     }
 
 
+    private Type annotate(Expression expression, Type type) {
+        expression.setType(type);
+        return type;
+    }
+
     @Override
     public Type visit(BinaryExpression binaryExpression) {
+        return annotate(binaryExpression, typeOf(binaryExpression));
+    }
+
+    @Override
+    public Type visit(UnaryExpression unaryExpression) {
+        return annotate(unaryExpression, typeOf(unaryExpression));
+    }
+
+    @Override
+    public Type visit(FunctionCall funcCall) {
+        return annotate(funcCall, typeOf(funcCall));
+    }
+
+    @Override
+    public Type visit(Identifier identifier) {
+        return annotate(identifier, typeOf(identifier));
+    }
+
+    @Override
+    public Type visit(ListAccessByIndex listAccessByIndex) {
+        return annotate(listAccessByIndex, typeOf(listAccessByIndex));
+    }
+
+    @Override
+    public Type visit(StructAccess structAccess) {
+        return annotate(structAccess, typeOf(structAccess));
+    }
+
+    @Override
+    public Type visit(ListSize listSize) {
+        return annotate(listSize, typeOf(listSize));
+    }
+
+    @Override
+    public Type visit(ListAppend listAppend) {
+        return annotate(listAppend, typeOf(listAppend));
+    }
+
+    @Override
+    public Type visit(ExprInPar exprInPar) {
+        return annotate(exprInPar, typeOf(exprInPar));
+    }
+
+    @Override
+    public Type visit(IntValue intValue) {
+        return annotate(intValue, typeOf(intValue));
+    }
+
+    @Override
+    public Type visit(BoolValue boolValue) {
+        return annotate(boolValue, typeOf(boolValue));
+    }
+
+    private Type typeOf(BinaryExpression binaryExpression) {
         Expression left = binaryExpression.getFirstOperand();
         Expression right = binaryExpression.getSecondOperand();
 
@@ -190,8 +249,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
     }
 
-    @Override
-    public Type visit(UnaryExpression unaryExpression) {
+    private Type typeOf(UnaryExpression unaryExpression) {
         Expression uExpr = unaryExpression.getOperand();
         Type uType = uExpr.accept(this);
         UnaryOperator operator = unaryExpression.getOperator();
@@ -215,8 +273,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         return new NoType();
     }
 
-    @Override
-    public Type visit(FunctionCall funcCall) {
+    private Type typeOf(FunctionCall funcCall) {
         boolean err = false;
         boolean preInFunctionCallStmt = inFunctionCallStmt;
         ArrayList<Type> funcCallArgsType = new ArrayList<>();
@@ -274,8 +331,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             return fptrType.getReturnType();
     }
 
-    @Override
-    public Type visit(Identifier identifier) {
+    private Type typeOf(Identifier identifier) {
         if (access) {
             SymbolTable thisStruct = getStructSymbolTable(accessStructName);
             try {
@@ -294,8 +350,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
     }
 
-    @Override
-    public Type visit(ListAccessByIndex listAccessByIndex) {
+    private Type typeOf(ListAccessByIndex listAccessByIndex) {
         Type indexType = listAccessByIndex.getIndex().accept(this);
         Type instanceType = listAccessByIndex.getInstance().accept(this);
 
@@ -320,8 +375,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
     }
 
-    @Override
-    public Type visit(StructAccess structAccess) {
+    private Type typeOf(StructAccess structAccess) {
         Expression instance = structAccess.getInstance();
         Identifier element = structAccess.getElement();
         Type instanceType = instance.accept(this);
@@ -341,8 +395,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
     }
 
-    @Override
-    public Type visit(ListSize listSize) {
+    private Type typeOf(ListSize listSize) {
         Type type = listSize.getArg().accept(this);
         if (type instanceof NoType)
             return new NoType();
@@ -353,8 +406,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         return new NoType();
     }
 
-    @Override
-    public Type visit(ListAppend listAppend) {
+    private Type typeOf(ListAppend listAppend) {
         if (!inFunctionCallStmt){
             CantUseValueOfVoidFunction exception = new CantUseValueOfVoidFunction(listAppend.getLine());
             listAppend.addError(exception);
@@ -379,18 +431,15 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         return new NoType();
     }
 
-    @Override
-    public Type visit(ExprInPar exprInPar) {
+    private Type typeOf(ExprInPar exprInPar) {
         return exprInPar.getInputs().get(0).accept(this);
     }
 
-    @Override
-    public Type visit(IntValue intValue) {
+    private Type typeOf(IntValue intValue) {
         return new IntType();
     }
 
-    @Override
-    public Type visit(BoolValue boolValue) {
+    private Type typeOf(BoolValue boolValue) {
         return new BoolType();
     }
 }
@@ -57,7 +57,7 @@ public class TypeChecker extends Visitor<Void> {
     public Void visit(StructDeclaration structDec) {
         String name = structDec.getStructName().getName();
         try {
-            StructSymbolTableItem structItem = (StructSymbolTableItem) SymbolTable.root.getItem(StructSymbolTableItem.START_KEY + name);
+            StructSymbolTableItem structItem = (StructSymbolTableItem) SymbolTable.root().getItem(StructSymbolTableItem.START_KEY + name);
             SymbolTable.push(structItem.getStructSymbolTable());
             structDec.getBody().accept(this);
         } catch (ItemNotFoundException exception) {//unReachable
@@ -81,7 +81,7 @@ public class TypeChecker extends Visitor<Void> {
 
         try {
             String funcKey = FunctionSymbolTableItem.START_KEY + functionDec.getFunctionName().getName();
-            functionItem = (FunctionSymbolTableItem) SymbolTable.root.getItem(funcKey);
+            functionItem = (FunctionSymbolTableItem) SymbolTable.root().getItem(funcKey);
             functionItem.setReturnType(type);
         }catch (ItemNotFoundException e) {//unreachable
         }
@@ -113,7 +113,7 @@ public class TypeChecker extends Visitor<Void> {
         functionDeclaration.setArgs(new ArrayList<>());
         FunctionSymbolTableItem functionSymbolTableItem = new FunctionSymbolTableItem(functionDeclaration);
         try {
-            SymbolTable.root.put(functionSymbolTableItem);
+            SymbolTable.root().put(functionSymbolTableItem);
         }
         catch (ItemAlreadyExistsException e){//unreachable
         }
@@ -133,11 +133,11 @@ public class TypeChecker extends Visitor<Void> {
         String name = variableDec.getVarName().getName();
         VariableSymbolTableItem varItem;
         try { //struct
-            varItem = (VariableSymbolTableItem) SymbolTable.top.getItem(VariableSymbolTableItem.START_KEY + name);
+            varItem = (VariableSymbolTableItem) SymbolTable.top().getItem(VariableSymbolTableItem.START_KEY + name);
         } catch (ItemNotFoundException exception) { //function & main
             varItem = new VariableSymbolTableItem(variableDec.getVarName());
             try {
-                SymbolTable.top.put(varItem);
+                SymbolTable.top().put(varItem);
             }catch (ItemAlreadyExistsException e) {//unReachable
             }
         }
@@ -166,7 +166,7 @@ public class TypeChecker extends Visitor<Void> {
     public Void visit(SetGetVarDeclaration setGetVarDec) {
         try {
             String varKey = VariableSymbolTableItem.START_KEY + setGetVarDec.getVarName().getName();
-            VariableSymbolTableItem varItem = (VariableSymbolTableItem) SymbolTable.top.getItem(varKey);
+            VariableSymbolTableItem varItem = (VariableSymbolTableItem) SymbolTable.top().getItem(varKey);
             varItem.setType(setGetVarDec.getVarType());
         } catch (ItemNotFoundException exception) {//unreachable
         }
@@ -175,7 +175,7 @@ public class TypeChecker extends Visitor<Void> {
         newFuncDec.setReturnType(setGetVarDec.getVarType());
         curFunction = newFuncDec;
 
-        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top);
+        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top());
         SymbolTable.push(newSymbolTable);
 
         for(VariableDeclaration varDec : setGetVarDec.getArgs()){
@@ -226,14 +226,14 @@ public class TypeChecker extends Visitor<Void> {
             ConditionNotBool exception = new ConditionNotBool(conditionalStmt.getLine());
             conditionalStmt.addError(exception);
         }
-        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top);
+        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top());
         SymbolTable.push(newSymbolTable);
         hasReturn = false;
         conditionalStmt.getThenBody().accept(this);
         hasReturnIf = hasReturn;
         SymbolTable.pop();
         if(conditionalStmt.getElseBody() != null) {
-            newSymbolTable = new SymbolTable(SymbolTable.top);
+            newSymbolTable = new SymbolTable(SymbolTable.top());
             SymbolTable.push(newSymbolTable);
             hasReturn = false;
             conditionalStmt.getElseBody().accept(this);
@@ -294,7 +294,7 @@ public class TypeChecker extends Visitor<Void> {
             loopStmt.addError(exception);
         }
 
-        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top);
+        SymbolTable newSymbolTable = new SymbolTable(SymbolTable.top());
         SymbolTable.push(newSymbolTable);
         loopStmt.getBody().accept(this);
         SymbolTable.pop();
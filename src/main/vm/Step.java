@@ -0,0 +1,6 @@
+package main.vm;
+
+//one linked instruction; returns the index of the next one, or -1 once the call is over
+public interface Step {
+    int execute(VmFrame frame);
+}
@@ -0,0 +1,93 @@
+package main.vm;
+
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.statement.*;
+import main.ast.types.*;
+import main.symbolTable.items.StructSymbolTableItem;
+
+import java.util.*;
+
+//a struct instance is an Object[] with one slot per field, in the order the struct declares them;
+//int and bool fields hold Integers, bools as 0 or 1
+public class StructLayout {
+    private static final Integer ZERO = 0;
+
+    private final Map<String, StructLayout> layouts;
+    private final ArrayList<VariableDeclaration> fields = new ArrayList<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Map<String, SetGetVarDeclaration> accessors = new LinkedHashMap<>();
+    private final Map<String, VmFunction> getters = new HashMap<>();
+    private final Map<String, VmFunction> setters = new HashMap<>();
+    private VmFunction initializer;
+
+    public StructLayout(StructSymbolTableItem structSymbolTableItem, Map<String, StructLayout> layouts) {
+        this.layouts = layouts;
+        StructDeclaration structDeclaration = structSymbolTableItem.getStructDeclaration();
+        addMembers(structDeclaration.getBody());
+        for (int slot = 0; slot < fields.size(); slot++)
+            slots.put(fields.get(slot).getVarName().getName(), slot);
+    }
+
+    private void addMembers(Statement member) {
+        if (member instanceof BlockStmt)
+            for (Statement statement : ((BlockStmt) member).getStatements())
+                addMembers(statement);
+        else if (member instanceof VarDecStmt)
+            fields.addAll(((VarDecStmt) member).getVars());
+        else if (member instanceof SetGetVarDeclaration) {
+            SetGetVarDeclaration setGetVarDeclaration = (SetGetVarDeclaration) member;
+            fields.add(setGetVarDeclaration.getVarDec());
+            accessors.put(setGetVarDeclaration.getVarName().getName(), setGetVarDeclaration);
+        }
+    }
+
+    public ArrayList<VariableDeclaration> getFields() {
+        return fields;
+    }
+
+    public boolean hasField(String name) {
+        return slots.containsKey(name);
+    }
+
+    public int slotOf(String name) {
+        return slots.get(name);
+    }
+
+    public Map<String, SetGetVarDeclaration> getAccessors() {
+        return accessors;
+    }
+
+    public VmFunction getterOf(String name) {
+        return getters.get(name);
+    }
+
+    public VmFunction setterOf(String name) {
+        return setters.get(name);
+    }
+
+    public void setAccessors(String name, VmFunction getter, VmFunction setter) {
+        getters.put(name, getter);
+        setters.put(name, setter);
+    }
+
+    public void setInitializer(VmFunction initializer) {
+        this.initializer = initializer;
+    }
+
+    public Object[] newInstance() {
+        Object[] instance = new Object[fields.size()];
+        for (int slot = 0; slot < instance.length; slot++) {
+            Type type = fields.get(slot).getVarType();
+            if (type instanceof ListType)
+                instance[slot] = new ArrayList<>();
+            else if (type instanceof StructType)
+                instance[slot] = layouts.get(((StructType) type).getStructName().getName()).newInstance();
+            else if (!(type instanceof FptrType))
+                instance[slot] = ZERO;
+        }
+        if (initializer != null)
+            initializer.call(instance);
+        return instance;
+    }
+}
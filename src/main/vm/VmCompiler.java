@@ -0,0 +1,557 @@
+package main.vm;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.*;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.*;
+import main.ast.nodes.expression.values.primitive.*;
+import main.ast.nodes.statement.*;
+import main.ast.types.*;
+import main.ast.types.primitives.*;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.StructSymbolTableItem;
+import main.visitor.Visitor;
+
+import java.util.*;
+
+//compiles a type checked program to register code; every expression answers the register holding its value,
+//and registers of locals and temporaries are handed back once the statement using them is done
+public class VmCompiler extends Visitor<Integer> {
+    private final Map<String, VmFunction> functions = new HashMap<>();
+    private final Map<String, StructLayout> layouts = new HashMap<>();
+    private VmFunction function;
+    private ArrayList<VmInstruction> code;
+    private Map<String, Integer> variables;
+    private int numberOfInts;
+    private int numberOfRefs;
+    private StructLayout self;
+    private int selfRegister;
+
+    //a place in the code that jumps may be emitted to before it is known
+    private static class Label {
+        private int position = -1;
+        private final ArrayList<VmInstruction> pending = new ArrayList<>();
+    }
+
+    //returns main, linked and ready to run
+    public static VmFunction compile(Program program) {
+        VmCompiler compiler = new VmCompiler();
+        program.accept(compiler);
+        return compiler.functions.get("main");
+    }
+
+    private static boolean isRef(Type type) {
+        return type instanceof ListType || type instanceof StructType || type instanceof FptrType;
+    }
+
+    private StructLayout layoutOf(Type structType) {
+        return layouts.get(((StructType) structType).getStructName().getName());
+    }
+
+    private int newRegister(Type type) {
+        int register = isRef(type) ? numberOfRefs++ : numberOfInts++;
+        function.useRegisters(numberOfInts, numberOfRefs);
+        return register;
+    }
+
+    private int newInt() {
+        return newRegister(new IntType());
+    }
+
+    private VmInstruction emit(VmOpcode opcode, int a, int b, int c) {
+        return emit(opcode, a, b, c, null, null);
+    }
+
+    private VmInstruction emit(VmOpcode opcode, int a, int b, int c, int[] arguments, Object constant) {
+        VmInstruction instruction = new VmInstruction(opcode, a, b, c, arguments, constant);
+        code.add(instruction);
+        return instruction;
+    }
+
+    private void emitJump(VmOpcode opcode, int b, int c, Label label) {
+        VmInstruction jump = emit(opcode, 0, b, c);
+        if (label.position >= 0)
+            jump.setTarget(label.position);
+        else
+            label.pending.add(jump);
+    }
+
+    private void bind(Label label) {
+        label.position = code.size();
+        for (VmInstruction jump : label.pending)
+            jump.setTarget(label.position);
+        label.pending.clear();
+    }
+
+    private void emitDefault(Type type, int register) {
+        if (type instanceof ListType)
+            emit(VmOpcode.LNEW, register, 0, 0);
+        else if (type instanceof StructType)
+            emit(VmOpcode.SNEW, register, 0, 0, null, layoutOf(type));
+        else if (type instanceof FptrType)
+            emit(VmOpcode.RCONST, register, 0, 0, null, null);
+        else
+            emit(VmOpcode.ICONST, register, 0, 0);
+    }
+
+    //the register holding the value to store, copied first when it is a list
+    private int storedValue(Expression value) {
+        int register = value.accept(this);
+        if (!(value.getType() instanceof ListType))
+            return register;
+        int copy = newRegister(value.getType());
+        emit(VmOpcode.LCOPY, copy, register, 0);
+        return copy;
+    }
+
+    private void compileStatement(Statement statement) {
+        int savedInts = numberOfInts;
+        int savedRefs = numberOfRefs;
+        statement.accept(this);
+        if (!(statement instanceof VarDecStmt)) {
+            numberOfInts = savedInts;
+            numberOfRefs = savedRefs;
+        }
+    }
+
+    //compiles one body into target; parameters past numberOfParams start out as locals holding their defaults
+    private void compileBody(VmFunction target, StructLayout owner, ArrayList<VariableDeclaration> params,
+                             int numberOfParams, Statement body) {
+        function = target;
+        code = new ArrayList<>();
+        variables = new HashMap<>();
+        numberOfInts = 0;
+        numberOfRefs = 0;
+        self = owner;
+        if (owner != null) {
+            selfRegister = numberOfRefs++;
+            target.addParam(true, selfRegister);
+        }
+        for (int i = 0; i < params.size(); i++) {
+            VariableDeclaration param = params.get(i);
+            if (i < numberOfParams) {
+                int register = newRegister(param.getVarType());
+                variables.put(param.getVarName().getName(), register);
+                target.addParam(isRef(param.getVarType()), register);
+            }
+            else
+                param.accept(this);
+        }
+        if (body != null)
+            compileStatement(body);
+        emit(VmOpcode.RET, 0, 0, 0);
+        target.setCode(code);
+    }
+
+    private void compileInitializer(StructLayout layout, VmFunction initializer) {
+        compileBody(initializer, layout, new ArrayList<>(), 0, null);
+        code.remove(code.size() - 1);
+        for (VariableDeclaration field : layout.getFields()) {
+            if (field.getDefaultValue() == null)
+                continue;
+            int value = storedValue(field.getDefaultValue());
+            emit(isRef(field.getVarType()) ? VmOpcode.FSETR : VmOpcode.FSETI, selfRegister,
+                    layout.slotOf(field.getVarName().getName()), value);
+        }
+        emit(VmOpcode.RET, 0, 0, 0);
+    }
+
+    @Override
+    public Integer visit(Program program) {
+        for (StructDeclaration structDeclaration : program.getStructs()) {
+            String name = structDeclaration.getStructName().getName();
+            try {
+                StructSymbolTableItem item = (StructSymbolTableItem) SymbolTable.root().getItem(StructSymbolTableItem.START_KEY + name);
+                layouts.put(name, new StructLayout(item, layouts));
+            } catch (ItemNotFoundException e) {//unreachable
+            }
+        }
+        for (FunctionDeclaration functionDeclaration : program.getFunctions()) {
+            String name = functionDeclaration.getFunctionName().getName();
+            functions.put(name, new VmFunction(name));
+        }
+
+        //every getter and setter has to exist before any body can call it
+        for (Map.Entry<String, StructLayout> entry : layouts.entrySet()) {
+            for (String fieldName : entry.getValue().getAccessors().keySet()) {
+                String name = entry.getKey() + "." + fieldName;
+                VmFunction getter = new VmFunction(name + ".get");
+                VmFunction setter = new VmFunction(name + ".set");
+                entry.getValue().setAccessors(fieldName, getter, setter);
+                functions.put(getter.getName(), getter);
+                functions.put(setter.getName(), setter);
+            }
+        }
+        for (Map.Entry<String, StructLayout> entry : layouts.entrySet()) {
+            StructLayout layout = entry.getValue();
+            for (SetGetVarDeclaration accessor : layout.getAccessors().values()) {
+                String fieldName = accessor.getVarName().getName();
+                compileBody(layout.getterOf(fieldName), layout, new ArrayList<>(), 0, accessor.getGetterBody());
+                compileBody(layout.setterOf(fieldName), layout, accessor.getArgs(), Math.min(1, accessor.getArgs().size()),
+                        accessor.getSetterBody());
+            }
+            for (VariableDeclaration field : layout.getFields()) {
+                if (field.getDefaultValue() != null) {
+                    VmFunction initializer = new VmFunction(entry.getKey() + ".init");
+                    compileInitializer(layout, initializer);
+                    layout.setInitializer(initializer);
+                    functions.put(initializer.getName(), initializer);
+                    break;
+                }
+            }
+        }
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            functionDeclaration.accept(this);
+        program.getMain().accept(this);
+
+        for (VmFunction compiled : functions.values())
+            compiled.link();
+        return null;
+    }
+
+    @Override
+    public Integer visit(FunctionDeclaration functionDeclaration) {
+        VmFunction target = functions.get(functionDeclaration.getFunctionName().getName());
+        compileBody(target, null, functionDeclaration.getArgs(), functionDeclaration.getArgs().size(), functionDeclaration.getBody());
+        return null;
+    }
+
+    @Override
+    public Integer visit(MainDeclaration mainDeclaration) {
+        VmFunction main = new VmFunction("main");
+        functions.put("main", main);
+        compileBody(main, null, new ArrayList<>(), 0, mainDeclaration.getBody());
+        return null;
+    }
+
+    @Override
+    public Integer visit(VariableDeclaration variableDeclaration) {
+        Type type = variableDeclaration.getVarType();
+        int register = newRegister(type);
+        int savedInts = numberOfInts;
+        int savedRefs = numberOfRefs;
+        if (variableDeclaration.getDefaultValue() != null) {
+            int value = storedValue(variableDeclaration.getDefaultValue());
+            emit(isRef(type) ? VmOpcode.RMOVE : VmOpcode.IMOVE, register, value, 0);
+        }
+        else
+            emitDefault(type, register);
+        numberOfInts = savedInts;
+        numberOfRefs = savedRefs;
+        variables.put(variableDeclaration.getVarName().getName(), register);
+        return null;
+    }
+
+    @Override
+    public Integer visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration variableDeclaration : varDecStmt.getVars())
+            variableDeclaration.accept(this);
+        return null;
+    }
+
+    private int assign(Expression lValue, Expression rValue) {
+        boolean ref = isRef(lValue.getType());
+        if (lValue instanceof Identifier && variables.containsKey(((Identifier) lValue).getName())) {
+            int value = storedValue(rValue);
+            emit(ref ? VmOpcode.RMOVE : VmOpcode.IMOVE, variables.get(((Identifier) lValue).getName()), value, 0);
+            return value;
+        }
+        if (lValue instanceof Identifier) {
+            int value = storedValue(rValue);
+            emit(ref ? VmOpcode.FSETR : VmOpcode.FSETI, selfRegister, self.slotOf(((Identifier) lValue).getName()), value);
+            return value;
+        }
+        if (lValue instanceof ListAccessByIndex) {
+            int list = ((ListAccessByIndex) lValue).getInstance().accept(this);
+            int index = ((ListAccessByIndex) lValue).getIndex().accept(this);
+            int value = storedValue(rValue);
+            emit(ref ? VmOpcode.LSETR : VmOpcode.LSETI, list, index, value);
+            return value;
+        }
+        Expression instance = ((StructAccess) lValue).getInstance();
+        String fieldName = ((StructAccess) lValue).getElement().getName();
+        StructLayout layout = layoutOf(instance.getType());
+        int struct = instance.accept(this);
+        int value = storedValue(rValue);
+        VmFunction setter = layout.setterOf(fieldName);
+        if (setter != null)
+            emit(VmOpcode.CALL, 0, -1, 0, new int[] {struct, value}, setter);
+        else
+            emit(ref ? VmOpcode.FSETR : VmOpcode.FSETI, struct, layout.slotOf(fieldName), value);
+        return value;
+    }
+
+    @Override
+    public Integer visit(AssignmentStmt assignmentStmt) {
+        assign(assignmentStmt.getLValue(), assignmentStmt.getRValue());
+        return null;
+    }
+
+    @Override
+    public Integer visit(BlockStmt blockStmt) {
+        for (Statement statement : blockStmt.getStatements())
+            compileStatement(statement);
+        return null;
+    }
+
+    @Override
+    public Integer visit(ConditionalStmt conditionalStmt) {
+        Label labelFalse = new Label();
+        compileBranch(conditionalStmt.getCondition(), false, labelFalse);
+        compileStatement(conditionalStmt.getThenBody());
+        if (conditionalStmt.getElseBody() == null) {
+            bind(labelFalse);
+            return null;
+        }
+        Label labelAfter = new Label();
+        emitJump(VmOpcode.JUMP, 0, 0, labelAfter);
+        bind(labelFalse);
+        compileStatement(conditionalStmt.getElseBody());
+        bind(labelAfter);
+        return null;
+    }
+
+    @Override
+    public Integer visit(LoopStmt loopStmt) {
+        Label labelStart = new Label();
+        bind(labelStart);
+        if (loopStmt.getIsDoWhile()) {
+            compileStatement(loopStmt.getBody());
+            compileBranch(loopStmt.getCondition(), true, labelStart);
+            return null;
+        }
+        Label labelAfter = new Label();
+        compileBranch(loopStmt.getCondition(), false, labelAfter);
+        compileStatement(loopStmt.getBody());
+        emitJump(VmOpcode.JUMP, 0, 0, labelStart);
+        bind(labelAfter);
+        return null;
+    }
+
+    @Override
+    public Integer visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Integer visit(DisplayStmt displayStmt) {
+        int value = displayStmt.getArg().accept(this);
+        emit(displayStmt.getArg().getType() instanceof BoolType ? VmOpcode.PRINTB : VmOpcode.PRINTI, 0, value, 0);
+        return null;
+    }
+
+    @Override
+    public Integer visit(ReturnStmt returnStmt) {
+        Expression returnedExpr = returnStmt.getReturnedExpr();
+        if (returnedExpr == null) {
+            emit(VmOpcode.RET, 0, 0, 0);
+            return null;
+        }
+        int value = returnedExpr.accept(this);
+        if (returnedExpr.getType() instanceof VoidType)
+            emit(VmOpcode.RET, 0, 0, 0);
+        else
+            emit(isRef(returnedExpr.getType()) ? VmOpcode.RETR : VmOpcode.RETI, 0, value, 0);
+        return null;
+    }
+
+    @Override
+    public Integer visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Integer visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        return null;
+    }
+
+    //jumps to label when condition is whenTrue and falls through otherwise
+    private void compileBranch(Expression condition, boolean whenTrue, Label label) {
+        if (condition instanceof ExprInPar) {
+            compileBranch(((ExprInPar) condition).getInputs().get(0), whenTrue, label);
+            return;
+        }
+        if (condition instanceof BoolValue) {
+            if (((BoolValue) condition).getConstant() == whenTrue)
+                emitJump(VmOpcode.JUMP, 0, 0, label);
+            return;
+        }
+        if (condition instanceof UnaryExpression && ((UnaryExpression) condition).getOperator() == UnaryOperator.not) {
+            compileBranch(((UnaryExpression) condition).getOperand(), !whenTrue, label);
+            return;
+        }
+        if (condition instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) condition;
+            BinaryOperator operator = binaryExpression.getBinaryOperator();
+            Expression firstOperand = binaryExpression.getFirstOperand();
+            Expression secondOperand = binaryExpression.getSecondOperand();
+            if (operator == BinaryOperator.and || operator == BinaryOperator.or) {
+                boolean shortCircuit = operator == BinaryOperator.or;
+                Label labelDecided = shortCircuit == whenTrue ? label : new Label();
+                compileBranch(firstOperand, shortCircuit, labelDecided);
+                compileBranch(secondOperand, whenTrue, label);
+                if (labelDecided != label)
+                    bind(labelDecided);
+                return;
+            }
+            if (operator == BinaryOperator.lt || operator == BinaryOperator.gt || operator == BinaryOperator.eq) {
+                int first = firstOperand.accept(this);
+                int second = secondOperand.accept(this);
+                VmOpcode jump;
+                if (operator == BinaryOperator.lt)
+                    jump = whenTrue ? VmOpcode.IFLT : VmOpcode.IFGE;
+                else if (operator == BinaryOperator.gt)
+                    jump = whenTrue ? VmOpcode.IFGT : VmOpcode.IFLE;
+                else if (isRef(firstOperand.getType()))
+                    jump = whenTrue ? VmOpcode.IFREQ : VmOpcode.IFRNE;
+                else
+                    jump = whenTrue ? VmOpcode.IFEQ : VmOpcode.IFNE;
+                emitJump(jump, first, second, label);
+                return;
+            }
+        }
+        int value = condition.accept(this);
+        emitJump(whenTrue ? VmOpcode.JUMPIF : VmOpcode.JUMPIFNOT, value, 0, label);
+    }
+
+    @Override
+    public Integer visit(BinaryExpression binaryExpression) {
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        if (operator == BinaryOperator.assign)
+            return assign(binaryExpression.getFirstOperand(), binaryExpression.getSecondOperand());
+        int result = newInt();
+        if (operator == BinaryOperator.and || operator == BinaryOperator.or || operator == BinaryOperator.lt
+                || operator == BinaryOperator.gt || operator == BinaryOperator.eq) {
+            Label labelFalse = new Label();
+            emit(VmOpcode.ICONST, result, 0, 0);
+            compileBranch(binaryExpression, false, labelFalse);
+            emit(VmOpcode.ICONST, result, 1, 0);
+            bind(labelFalse);
+            return result;
+        }
+        int first = binaryExpression.getFirstOperand().accept(this);
+        int second = binaryExpression.getSecondOperand().accept(this);
+        VmOpcode opcode;
+        if (operator == BinaryOperator.add)
+            opcode = VmOpcode.IADD;
+        else if (operator == BinaryOperator.sub)
+            opcode = VmOpcode.ISUB;
+        else if (operator == BinaryOperator.mult)
+            opcode = VmOpcode.IMUL;
+        else
+            opcode = VmOpcode.IDIV;
+        emit(opcode, result, first, second);
+        return result;
+    }
+
+    @Override
+    public Integer visit(UnaryExpression unaryExpression) {
+        int operand = unaryExpression.getOperand().accept(this);
+        int result = newInt();
+        emit(unaryExpression.getOperator() == UnaryOperator.minus ? VmOpcode.INEG : VmOpcode.INOT, result, operand, 0);
+        return result;
+    }
+
+    @Override
+    public Integer visit(Identifier identifier) {
+        String name = identifier.getName();
+        if (variables.containsKey(name))
+            return variables.get(name);
+        int result = newRegister(identifier.getType());
+        if (self != null && self.hasField(name))
+            emit(isRef(identifier.getType()) ? VmOpcode.FGETR : VmOpcode.FGETI, result, selfRegister, self.slotOf(name));
+        else
+            emit(VmOpcode.RCONST, result, 0, 0, null, functions.get(name));
+        return result;
+    }
+
+    @Override
+    public Integer visit(ListAccessByIndex listAccessByIndex) {
+        int list = listAccessByIndex.getInstance().accept(this);
+        int index = listAccessByIndex.getIndex().accept(this);
+        int result = newRegister(listAccessByIndex.getType());
+        emit(isRef(listAccessByIndex.getType()) ? VmOpcode.LGETR : VmOpcode.LGETI, result, list, index);
+        return result;
+    }
+
+    @Override
+    public Integer visit(StructAccess structAccess) {
+        StructLayout layout = layoutOf(structAccess.getInstance().getType());
+        String fieldName = structAccess.getElement().getName();
+        boolean ref = isRef(structAccess.getType());
+        int struct = structAccess.getInstance().accept(this);
+        int result = newRegister(structAccess.getType());
+        VmFunction getter = layout.getterOf(fieldName);
+        if (getter != null)
+            emit(ref ? VmOpcode.CALLR : VmOpcode.CALLI, result, -1, 0, new int[] {struct}, getter);
+        else
+            emit(ref ? VmOpcode.FGETR : VmOpcode.FGETI, result, struct, layout.slotOf(fieldName));
+        return result;
+    }
+
+    @Override
+    public Integer visit(FunctionCall functionCall) {
+        Expression instance = functionCall.getInstance();
+        VmFunction callee = null;
+        int fptr = -1;
+        if (instance instanceof Identifier && !variables.containsKey(((Identifier) instance).getName())
+                && (self == null || !self.hasField(((Identifier) instance).getName())))
+            callee = functions.get(((Identifier) instance).getName());
+        else
+            fptr = instance.accept(this);
+
+        ArrayList<Expression> args = functionCall.getArgs();
+        int[] arguments = new int[args.size()];
+        for (int i = 0; i < args.size(); i++)
+            arguments[i] = storedValue(args.get(i));
+
+        Type returnType = functionCall.getType();
+        if (returnType instanceof VoidType || returnType instanceof NoType) {
+            emit(VmOpcode.CALL, 0, fptr, 0, arguments, callee);
+            return -1;
+        }
+        int result = newRegister(returnType);
+        emit(isRef(returnType) ? VmOpcode.CALLR : VmOpcode.CALLI, result, fptr, 0, arguments, callee);
+        return result;
+    }
+
+    @Override
+    public Integer visit(IntValue intValue) {
+        int result = newInt();
+        emit(VmOpcode.ICONST, result, intValue.getConstant(), 0);
+        return result;
+    }
+
+    @Override
+    public Integer visit(BoolValue boolValue) {
+        int result = newInt();
+        emit(VmOpcode.ICONST, result, boolValue.getConstant() ? 1 : 0, 0);
+        return result;
+    }
+
+    @Override
+    public Integer visit(ListSize listSize) {
+        int list = listSize.getArg().accept(this);
+        int result = newInt();
+        emit(VmOpcode.LSIZE, result, list, 0);
+        return result;
+    }
+
+    @Override
+    public Integer visit(ListAppend listAppend) {
+        int list = listAppend.getListArg().accept(this);
+        int value = storedValue(listAppend.getElementArg());
+        emit(isRef(listAppend.getElementArg().getType()) ? VmOpcode.LADDR : VmOpcode.LADDI, list, value, 0);
+        return -1;
+    }
+
+    @Override
+    public Integer visit(ExprInPar exprInPar) {
+        return exprInPar.getInputs().get(0).accept(this);
+    }
+}
@@ -0,0 +1,14 @@
+package main.vm;
+
+//the registers of one running call; left as plain fields since every step reads them
+public class VmFrame {
+    final int[] ints;
+    final Object[] refs;
+    int intResult;
+    Object refResult;
+
+    public VmFrame(int numberOfInts, int numberOfRefs) {
+        this.ints = new int[numberOfInts];
+        this.refs = new Object[numberOfRefs];
+    }
+}
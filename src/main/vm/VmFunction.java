@@ -0,0 +1,95 @@
+package main.vm;
+
+import java.util.ArrayList;
+
+//a compiled body: its instructions, its register counts and where its parameters arrive
+public class VmFunction {
+    private final String name;
+    private final ArrayList<Boolean> paramIsRef = new ArrayList<>();
+    private final ArrayList<Integer> paramRegisters = new ArrayList<>();
+    private ArrayList<VmInstruction> code = new ArrayList<>();
+    private int numberOfInts = 0;
+    private int numberOfRefs = 0;
+    private boolean[] refParams;
+    private int[] params;
+    private Step[] steps;
+
+    public VmFunction(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void addParam(boolean isRef, int register) {
+        paramIsRef.add(isRef);
+        paramRegisters.add(register);
+    }
+
+    public void useRegisters(int numberOfInts, int numberOfRefs) {
+        this.numberOfInts = Math.max(this.numberOfInts, numberOfInts);
+        this.numberOfRefs = Math.max(this.numberOfRefs, numberOfRefs);
+    }
+
+    public ArrayList<VmInstruction> getCode() {
+        return code;
+    }
+
+    public void setCode(ArrayList<VmInstruction> code) {
+        this.code = code;
+    }
+
+    //turns every instruction into its step once all functions it may call exist
+    public void link() {
+        refParams = new boolean[paramIsRef.size()];
+        params = new int[paramRegisters.size()];
+        for (int i = 0; i < params.length; i++) {
+            refParams[i] = paramIsRef.get(i);
+            params[i] = paramRegisters.get(i);
+        }
+        steps = new Step[code.size()];
+        for (int pc = 0; pc < code.size(); pc++)
+            steps[pc] = code.get(pc).link(pc + 1);
+    }
+
+    public VmFrame newFrame() {
+        return new VmFrame(numberOfInts, numberOfRefs);
+    }
+
+    public void execute(VmFrame frame) {
+        Step[] steps = this.steps;
+        int pc = 0;
+        while (pc >= 0)
+            pc = steps[pc].execute(frame);
+    }
+
+    //runs a call whose arguments sit in the given registers of the caller; a setter declared
+    //without parameters is still handed the assigned value, which it ignores
+    public VmFrame call(VmFrame caller, int[] arguments) {
+        VmFrame frame = newFrame();
+        for (int i = 0; i < params.length; i++) {
+            if (refParams[i])
+                frame.refs[params[i]] = caller.refs[arguments[i]];
+            else
+                frame.ints[params[i]] = caller.ints[arguments[i]];
+        }
+        execute(frame);
+        return frame;
+    }
+
+    //runs a call taking a single reference, like a struct initializer given its new instance
+    public void call(Object argument) {
+        VmFrame frame = newFrame();
+        frame.refs[params[0]] = argument;
+        execute(frame);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder listing = new StringBuilder(name).append(":\n");
+        for (int pc = 0; pc < code.size(); pc++)
+            listing.append(pc).append('\t').append(code.get(pc)).append('\n');
+        return listing.toString();
+    }
+}
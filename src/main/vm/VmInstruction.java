@@ -0,0 +1,182 @@
+package main.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class VmInstruction {
+    private final VmOpcode opcode;
+    private final int a;
+    private final int b;
+    private final int c;
+    private final int[] arguments;
+    private final Object constant;
+    private int target = -1;
+
+    public VmInstruction(VmOpcode opcode, int a, int b, int c, int[] arguments, Object constant) {
+        this.opcode = opcode;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.arguments = arguments;
+        this.constant = constant;
+    }
+
+    public VmOpcode getOpcode() {
+        return opcode;
+    }
+
+    public void setTarget(int target) {
+        this.target = target;
+    }
+
+    //lists behave as values, so every stored list is a copy with its own nested lists
+    @SuppressWarnings("unchecked")
+    static ArrayList<Object> copy(Object list) {
+        ArrayList<Object> copied = new ArrayList<>();
+        for (Object element : (ArrayList<Object>) list)
+            copied.add(element instanceof ArrayList ? copy(element) : element);
+        return copied;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayList<Object> list(Object value) {
+        return (ArrayList<Object>) value;
+    }
+
+    private static VmFunction callee(VmFunction function, VmFrame frame, int fptr) {
+        VmFunction callee = function != null ? function : (VmFunction) frame.refs[fptr];
+        if (callee == null)
+            throw new NullPointerException("call through an fptr that was never assigned");
+        return callee;
+    }
+
+    //the step running this instruction, with its operands captured so it never looks at the instruction again
+    public Step link(int next) {
+        final int a = this.a;
+        final int b = this.b;
+        final int c = this.c;
+        final int target = this.target;
+        final int[] arguments = this.arguments;
+        switch (opcode) {
+            case ICONST:
+                return frame -> { frame.ints[a] = b; return next; };
+            case RCONST: {
+                Object constant = this.constant;
+                return frame -> { frame.refs[a] = constant; return next; };
+            }
+            case IMOVE:
+                return frame -> { frame.ints[a] = frame.ints[b]; return next; };
+            case RMOVE:
+                return frame -> { frame.refs[a] = frame.refs[b]; return next; };
+            case IADD:
+                return frame -> { frame.ints[a] = frame.ints[b] + frame.ints[c]; return next; };
+            case ISUB:
+                return frame -> { frame.ints[a] = frame.ints[b] - frame.ints[c]; return next; };
+            case IMUL:
+                return frame -> { frame.ints[a] = frame.ints[b] * frame.ints[c]; return next; };
+            case IDIV:
+                return frame -> { frame.ints[a] = frame.ints[b] / frame.ints[c]; return next; };
+            case INEG:
+                return frame -> { frame.ints[a] = -frame.ints[b]; return next; };
+            case INOT:
+                return frame -> { frame.ints[a] = 1 - frame.ints[b]; return next; };
+            case ILT:
+                return frame -> { frame.ints[a] = frame.ints[b] < frame.ints[c] ? 1 : 0; return next; };
+            case IGT:
+                return frame -> { frame.ints[a] = frame.ints[b] > frame.ints[c] ? 1 : 0; return next; };
+            case IEQ:
+                return frame -> { frame.ints[a] = frame.ints[b] == frame.ints[c] ? 1 : 0; return next; };
+            case REQ:
+                return frame -> { frame.ints[a] = frame.refs[b] == frame.refs[c] ? 1 : 0; return next; };
+            case JUMP:
+                return frame -> target;
+            case JUMPIF:
+                return frame -> frame.ints[b] != 0 ? target : next;
+            case JUMPIFNOT:
+                return frame -> frame.ints[b] == 0 ? target : next;
+            case IFLT:
+                return frame -> frame.ints[b] < frame.ints[c] ? target : next;
+            case IFGE:
+                return frame -> frame.ints[b] >= frame.ints[c] ? target : next;
+            case IFGT:
+                return frame -> frame.ints[b] > frame.ints[c] ? target : next;
+            case IFLE:
+                return frame -> frame.ints[b] <= frame.ints[c] ? target : next;
+            case IFEQ:
+                return frame -> frame.ints[b] == frame.ints[c] ? target : next;
+            case IFNE:
+                return frame -> frame.ints[b] != frame.ints[c] ? target : next;
+            case IFREQ:
+                return frame -> frame.refs[b] == frame.refs[c] ? target : next;
+            case IFRNE:
+                return frame -> frame.refs[b] != frame.refs[c] ? target : next;
+            case LNEW:
+                return frame -> { frame.refs[a] = new ArrayList<>(); return next; };
+            case LCOPY:
+                return frame -> { frame.refs[a] = copy(frame.refs[b]); return next; };
+            case LSIZE:
+                return frame -> { frame.ints[a] = list(frame.refs[b]).size(); return next; };
+            case LGETI:
+                return frame -> { frame.ints[a] = (Integer) list(frame.refs[b]).get(frame.ints[c]); return next; };
+            case LGETR:
+                return frame -> { frame.refs[a] = list(frame.refs[b]).get(frame.ints[c]); return next; };
+            case LSETI:
+                return frame -> { list(frame.refs[a]).set(frame.ints[b], frame.ints[c]); return next; };
+            case LSETR:
+                return frame -> { list(frame.refs[a]).set(frame.ints[b], frame.refs[c]); return next; };
+            case LADDI:
+                return frame -> { list(frame.refs[a]).add(frame.ints[b]); return next; };
+            case LADDR:
+                return frame -> { list(frame.refs[a]).add(frame.refs[b]); return next; };
+            case SNEW: {
+                StructLayout layout = (StructLayout) constant;
+                return frame -> { frame.refs[a] = layout.newInstance(); return next; };
+            }
+            case FGETI:
+                return frame -> { frame.ints[a] = (Integer) ((Object[]) frame.refs[b])[c]; return next; };
+            case FGETR:
+                return frame -> { frame.refs[a] = ((Object[]) frame.refs[b])[c]; return next; };
+            case FSETI:
+                return frame -> { ((Object[]) frame.refs[a])[b] = frame.ints[c]; return next; };
+            case FSETR:
+                return frame -> { ((Object[]) frame.refs[a])[b] = frame.refs[c]; return next; };
+            case CALL: {
+                VmFunction function = (VmFunction) constant;
+                return frame -> { callee(function, frame, b).call(frame, arguments); return next; };
+            }
+            case CALLI: {
+                VmFunction function = (VmFunction) constant;
+                return frame -> { frame.ints[a] = callee(function, frame, b).call(frame, arguments).intResult; return next; };
+            }
+            case CALLR: {
+                VmFunction function = (VmFunction) constant;
+                return frame -> { frame.refs[a] = callee(function, frame, b).call(frame, arguments).refResult; return next; };
+            }
+            case RET:
+                return frame -> -1;
+            case RETI:
+                return frame -> { frame.intResult = frame.ints[b]; return -1; };
+            case RETR:
+                return frame -> { frame.refResult = frame.refs[b]; return -1; };
+            case PRINTI:
+                return frame -> { System.out.println(frame.ints[b]); return next; };
+            case PRINTB:
+                return frame -> { System.out.println(frame.ints[b] != 0); return next; };
+            default:
+                throw new IllegalStateException("no step for " + opcode);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(opcode.name().toLowerCase());
+        text.append(' ').append(a).append(' ').append(b).append(' ').append(c);
+        if (target >= 0)
+            text.append(" -> ").append(target);
+        if (arguments != null)
+            text.append(' ').append(Arrays.toString(arguments));
+        if (constant instanceof VmFunction)
+            text.append(' ').append(((VmFunction) constant).getName());
+        return text.toString();
+    }
+}
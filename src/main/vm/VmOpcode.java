@@ -0,0 +1,27 @@
+package main.vm;
+
+//operands are registers unless noted; "i" ops work on the int registers, which also hold bools as 0 or 1,
+//"r" ops on the reference registers holding lists, structs and fptrs
+public enum VmOpcode {
+    ICONST,     //a = b as a number
+    RCONST,     //a = the constant, a function or null
+    IMOVE, RMOVE,   //a = b
+    IADD, ISUB, IMUL, IDIV,     //a = b op c
+    INEG, INOT,     //a = op b
+    ILT, IGT, IEQ, REQ,     //a = b op c as 0 or 1
+    JUMP,       //to the target
+    JUMPIF, JUMPIFNOT,      //to the target when b is or is not 0
+    IFLT, IFGE, IFGT, IFLE, IFEQ, IFNE, IFREQ, IFRNE,       //to the target when b op c
+    LNEW,       //a = an empty list
+    LCOPY,      //a = a copy of the list b
+    LSIZE,      //a = the size of the list b
+    LGETI, LGETR,   //a = b[c]
+    LSETI, LSETR,   //a[b] = c
+    LADDI, LADDR,   //append b to a
+    SNEW,       //a = a new struct of the constant layout
+    FGETI, FGETR,   //a = the field in slot c of the struct b
+    FSETI, FSETR,   //the field in slot b of the struct a = c
+    CALL, CALLI, CALLR,     //calls the constant function, or the fptr in b, with the argument registers; a = the result
+    RET, RETI, RETR,    //returns nothing, or b
+    PRINTI, PRINTB      //displays b
+}
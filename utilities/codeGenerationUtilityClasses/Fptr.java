@@ -1,36 +1,99 @@
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Fptr {
+    private static final ConcurrentHashMap<String, MethodHandle> handles = new ConcurrentHashMap<>();
+
     Object instance;
     String methodName;
+    private MethodHandle handle;
 
     public Fptr(Object instance, String methodName) {
         this.instance = instance;
         this.methodName = methodName;
     }
 
-    public Object invoke(ArrayList<Object> arguments) {
-        int argumentsSize = arguments.size();
-        Class[] argsClasses = new Class[argumentsSize];
-        Object[] argsArray = new Object[argumentsSize];
-        for(int i = 0; i < argumentsSize; i++) {
-            argsClasses[i] = arguments.get(i).getClass();
-            argsArray[i] = arguments.get(i);
+    private static MethodHandle resolve(Class<?> instanceClass, String methodName) {
+        String key = instanceClass.getName() + "." + methodName;
+        MethodHandle cached = handles.get(key);
+        if(cached != null)
+            return cached;
+        for(Method candidate : instanceClass.getMethods()) {
+            if(candidate.getName().equals(methodName)) {
+                try {
+                    MethodHandle found = MethodHandles.publicLookup().unreflect(candidate);
+                    found = found.asType(MethodType.genericMethodType(candidate.getParameterCount() + 1));
+                    cached = handles.putIfAbsent(key, found);
+                    return cached != null ? cached : found;
+                } catch (IllegalAccessException e) {
+                    e.printStackTrace();
+                    System.exit(1);
+                }
+            }
+        }
+        throw new IllegalArgumentException("no method " + methodName);
+    }
+
+    MethodHandle getHandle() {
+        if(this.handle == null)
+            this.handle = resolve(this.instance.getClass(), this.methodName);
+        return this.handle;
+    }
+
+    public Object invoke0() {
+        try {
+            return (Object) getHandle().invokeExact(this.instance);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        return null;
+    }
+
+    public Object invoke1(Object arg0) {
+        try {
+            return (Object) getHandle().invokeExact(this.instance, arg0);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        return null;
+    }
+
+    public Object invoke2(Object arg0, Object arg1) {
+        try {
+            return (Object) getHandle().invokeExact(this.instance, arg0, arg1);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.exit(1);
         }
-        Method objectMethod = null;
+        return null;
+    }
+
+    public Object invoke3(Object arg0, Object arg1, Object arg2) {
         try {
-            objectMethod = this.instance.getClass().getMethod(this.methodName, argsClasses);
-        } catch (NoSuchMethodException e) { 
+            return (Object) getHandle().invokeExact(this.instance, arg0, arg1, arg2);
+        } catch (Throwable e) {
             e.printStackTrace();
+            System.exit(1);
         }
+        return null;
+    }
+
+    public Object invoke(ArrayList<Object> arguments) {
+        ArrayList<Object> allArguments = new ArrayList<>(arguments.size() + 1);
+        allArguments.add(this.instance);
+        allArguments.addAll(arguments);
         try {
-            return objectMethod.invoke(this.instance, argsArray);
-        } catch (IllegalAccessException | InvocationTargetException e) { 
+            return getHandle().invokeWithArguments(allArguments);
+        } catch (Throwable e) {
             e.printStackTrace();
             System.exit(1);
         }
         return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+
+public class FptrLinker {
+    private static final MethodHandle RELINK;
+    private static final MethodHandle MATCHES;
+    private static final MethodHandle INSTANCE;
+    private static final MethodHandle GENERIC;
+
+    //the runtime classes are assembled by jasmin, which has no class literals, so types are given as descriptors
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        ClassLoader loader = lookup.lookupClass().getClassLoader();
+        try {
+            RELINK = lookup.findStatic(lookup.lookupClass(), "relink", MethodType.fromMethodDescriptorString(
+                    "(Ljava/lang/invoke/MutableCallSite;[Ljava/lang/Object;)Ljava/lang/Object;", loader));
+            MATCHES = lookup.findStatic(lookup.lookupClass(), "matches", MethodType.fromMethodDescriptorString(
+                    "(Ljava/lang/Class;Ljava/lang/String;LFptr;)Z", loader));
+            INSTANCE = lookup.findStatic(lookup.lookupClass(), "instanceOf", MethodType.fromMethodDescriptorString(
+                    "(LFptr;)Ljava/lang/Object;", loader));
+            GENERIC = lookup.findStatic(lookup.lookupClass(), "invokeGeneric", MethodType.fromMethodDescriptorString(
+                    "([Ljava/lang/Object;)Ljava/lang/Object;", loader));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static CallSite bootstrap(MethodHandles.Lookup caller, String name, MethodType type) {
+        MutableCallSite site = new MutableCallSite(type);
+        site.setTarget(collect(RELINK.bindTo(site), type));
+        return site;
+    }
+
+    private static MethodHandle collect(MethodHandle spread, MethodType type) {
+        Class<?> arrayType = spread.type().parameterType(spread.type().parameterCount() - 1);
+        return spread.asCollector(arrayType, type.parameterCount()).asType(type);
+    }
+
+    private static Object instanceOf(Fptr fptr) {
+        return fptr.instance;
+    }
+
+    private static boolean matches(Class<?> instanceClass, String methodName, Fptr fptr) {
+        return fptr.instance.getClass() == instanceClass && fptr.methodName.equals(methodName);
+    }
+
+    private static Object relink(MutableCallSite site, Object[] arguments) throws Throwable {
+        Fptr fptr = (Fptr) arguments[0];
+        MethodType type = site.type();
+        MethodHandle direct = MethodHandles.filterArguments(fptr.getHandle(), 0, INSTANCE).asType(type);
+        MethodHandle test = MethodHandles.insertArguments(MATCHES, 0, fptr.instance.getClass(), fptr.methodName);
+        MethodHandle generic = collect(GENERIC, type);
+        site.setTarget(MethodHandles.guardWithTest(test, direct, generic));
+        return direct.invokeWithArguments(arguments);
+    }
+
+    private static Object invokeGeneric(Object[] arguments) throws Throwable {
+        Fptr fptr = (Fptr) arguments[0];
+        arguments[0] = fptr.instance;
+        return fptr.getHandle().invokeWithArguments(arguments);
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.Arrays;
+
+public class IntList {
+    private int[] elements;
+    private int size;
+    private int[] sharers;
+
+    public IntList() {
+        this.elements = new int[8];
+        this.sharers = new int[] {1};
+    }
+
+    public IntList(IntList that) {
+        this.elements = that.elements;
+        this.size = that.size;
+        this.sharers = that.sharers;
+        this.sharers[0]++;
+    }
+
+    private void own(int capacity) {
+        if(this.sharers[0] == 1 && capacity <= this.elements.length)
+            return;
+        if(this.sharers[0] != 1) {
+            this.sharers[0]--;
+            this.sharers = new int[] {1};
+        }
+        int length = this.elements.length;
+        if(capacity > length)
+            length = Math.max(capacity, length * 2);
+        this.elements = Arrays.copyOf(this.elements, length);
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= this.size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+
+    public int getInt(int index) {
+        checkIndex(index);
+        return this.elements[index];
+    }
+
+    public void setInt(int index, int value) {
+        checkIndex(index);
+        own(this.size);
+        this.elements[index] = value;
+    }
+
+    public int getSize() {return this.size;}
+
+    public void addInt(int value) {
+        own(this.size + 1);
+        this.elements[this.size++] = value;
+    }
+
+}
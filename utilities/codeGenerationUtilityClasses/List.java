@@ -2,30 +2,66 @@ import java.util.ArrayList;
 
 public class List {
     public ArrayList<Object> elements;
+    private int[] sharers;
 
     public List(ArrayList<Object> newElements) {
         this.elements = new ArrayList<>();
+        this.sharers = new int[] {1};
         for(Object newElement : newElements)
             this.elements.add(getNewObject(newElement));
     }
 
     public List(List that) {
-        this(that.elements);
+        this.elements = that.elements;
+        this.sharers = that.sharers;
+        this.sharers[0]++;
+    }
+
+    private static boolean isList(Object o) {
+        return o instanceof List || o instanceof IntList || o instanceof BoolList;
     }
 
     private Object getNewObject(Object o) {
         if(o instanceof List)
             return new List((List) o);
+        else if(o instanceof IntList)
+            return new IntList((IntList) o);
+        else if(o instanceof BoolList)
+            return new BoolList((BoolList) o);
         else
             return o;
     }
 
+    private void own() {
+        if(this.sharers[0] == 1)
+            return;
+        this.sharers[0]--;
+        ArrayList<Object> shared = this.elements;
+        this.elements = new ArrayList<>(shared.size());
+        this.sharers = new int[] {1};
+        for(Object element : shared)
+            this.elements.add(getNewObject(element));
+    }
+
     public Object getElement(int index) {
-        return this.elements.get(index);
+        Object element = this.elements.get(index);
+        if(this.sharers[0] != 1 && isList(element)) {
+            own();
+            element = this.elements.get(index);
+        }
+        return element;
+    }
+
+    public void setElement(int index, Object o) {
+        own();
+        this.elements.set(index, getNewObject(o));
     }
 
     public int getSize() {return this.elements.size();}
 
-    public void addElement(Object o) {this.elements.add(getNewObject(o));}
+    public void addElement(Object o) {
+        own();
+        this.elements.add(getNewObject(o));
+    }
 
-}
\ No newline at end of file
+}